@@ -0,0 +1,112 @@
+package searchengine.storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import searchengine.config.StorageSettings;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repositories.IndexRepository;
+import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.SiteRepository;
+import searchengine.utils.TermFrequencies;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexPageBenchmark {
+    private static final int PAGES = 400;
+    private static final String LETTERS = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя";
+
+    @Param("5000")
+    private int vocabularySize;
+    @Param("540")
+    private int pageLemmas;
+    @Param("1200")
+    private int pageTokens;
+
+    private RepositoryIndexStore store;
+    private Page[] pages;
+    private String[][] tokens;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<TermId> terms = new ArrayList<>(vocabularySize);
+        Map<String, TermId> dictionary = new HashMap<>();
+        while (terms.size() < vocabularySize) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 4 + random.nextInt(7); i > 0; i--) {
+                word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            TermId term = new TermId(terms.size() + 1, word.toString(), random.nextInt(PAGES));
+            if (dictionary.putIfAbsent(term.lemma(), term) == null) {
+                terms.add(term);
+            }
+        }
+        LemmaRepository lemmaRepository = repository(LemmaRepository.class, (proxy, method, args) ->
+                !method.getName().equals("getTermIds") ? null : args.length == 1 ? terms
+                        : ((Collection<?>) args[1]).stream().map(dictionary::get).toList());
+        store = new RepositoryIndexStore(lemmaRepository, repository(IndexRepository.class, null),
+                repository(SiteRepository.class, null), new StorageSettings());
+        Site site = new Site("http://localhost", "benchmark");
+        site.setId(1);
+        pages = new Page[PAGES];
+        tokens = new String[PAGES][pageTokens];
+        for (int page = 0; page < PAGES; page++) {
+            pages[page] = new Page(site, "/" + page, 200, "");
+            pages[page].setId(page + 1);
+            String[] lemmas = new String[pageLemmas];
+            for (int i = 0; i < pageLemmas; i++) {
+                lemmas[i] = terms.get(random.nextInt(vocabularySize)).lemma();
+            }
+            for (int i = 0; i < pageTokens; i++) {
+                tokens[page][i] = lemmas[i < pageLemmas ? i : random.nextInt(pageLemmas)];
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexPage() {
+        int page = next++ % PAGES;
+        TermFrequencies frequencies = new TermFrequencies();
+        String[] pageTokens = tokens[page];
+        for (int position = 0; position < pageTokens.length; position++) {
+            frequencies.addPosition(pageTokens[position], position);
+        }
+        store.addPostings(pages[page], frequencies);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("equals") ? proxy == args[0]
+                        : method.getName().equals("hashCode") ? System.identityHashCode(proxy) : type.getName();
+            }
+            return handler == null ? null : handler.invoke(proxy, method, args);
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "feed-settings")
+public class FeedSettings {
+    private String spool = "";
+    private int batchSize = 250;
+    private int queueCapacity = 10000;
+}
@@ -0,0 +1,27 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "search-settings")
+public class SearchSettings {
+    private double maxFrequencyRatio = 0.7;
+    private long resultTtl = 300000;
+    private int resultCacheSize = 256;
+    private int proximityDepth = 200;
+    private double proximityWeight = 1.0;
+    private long timeout = 2000;
+    private long abortTimeout = 10000;
+    private int partialDepth = 200;
+    private int heavyPostings = 100000;
+    private int maxHeavyQueries = 4;
+    private long slowQueryThreshold = 1000;
+    private int maxExpansions = 5;
+    private int maxEdits = 2;
+    private int minPrefixLength = 3;
+    private int maxExpansionFrequency = 10000;
+    private long vocabularyTtl = 60000;
+}
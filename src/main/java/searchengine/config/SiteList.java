@@ -5,13 +5,48 @@ import lombok.Getter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 @Data
 @ConfigurationProperties(prefix = "indexing-settings")
 public class SiteList {
-    public record SiteRecord(@Getter String url, @Getter String name) {}
+    public record SiteRecord(@Getter String url, @Getter String name,
+                             @Getter Integer maxPages, @Getter Integer maxDepth) {}
 
     private List<SiteRecord> sites;
+    private String userAgent = "SearchEngineBot";
+    private int maxPages = 10000;
+    private int maxDepth = 10;
+    private long crawlTimeout = 3600000;
+    private int duplicateDistance = 3;
+    private Map<String, Integer> fieldWeights = new HashMap<>(Map.of("title", 5, "h1", 3, "h2", 2, "h3", 2));
+    /**
+     * Узлы, работающие с одной базой, делят сайты между собой через аренду: узел обходит не больше
+     * {@code maxLeasedSites} сайтов, продлевает аренду каждые {@code heartbeatInterval} мс,
+     * а аренду, не продлённую за {@code leaseDuration} мс, забирает другой узел.
+     */
+    private String nodeId = UUID.randomUUID().toString();
+    private long leaseDuration = 30000;
+    private long heartbeatInterval = 10000;
+    private int maxLeasedSites = 8;
+    private int initialFetchLimit = 4;
+    private int maxFetchLimit = 32;
+    private double latencyTolerance = 2.0;
+    private int fetchTimeout = 30000;
+    private long maxBodySize = 5242880;
+    private List<String> contentTypes = List.of("text/html", "application/xhtml+xml");
+    private List<String> queryParameters = List.of();
+
+    public int getMaxPages(SiteRecord config) {
+        return Optional.ofNullable(config.maxPages()).orElse(maxPages);
+    }
+
+    public int getMaxDepth(SiteRecord config) {
+        return Optional.ofNullable(config.maxDepth()).orElse(maxDepth);
+    }
 }
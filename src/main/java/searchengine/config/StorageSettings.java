@@ -0,0 +1,18 @@
+package searchengine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "storage-settings")
+public class StorageSettings {
+    private String type = "mysql";
+    private String path = "index";
+    private int flushPages = 1000;
+    private int mergeFactor = 8;
+    private long mergeInterval = 10000;
+    private String snapshotPath = "";
+    private long snapshotInterval = 600000;
+}
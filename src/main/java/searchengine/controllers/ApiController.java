@@ -1,31 +1,44 @@
 package searchengine.controllers;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import searchengine.dto.indexing.IndexingResponse;
 import searchengine.dto.searching.SearchResponse;
 import searchengine.dto.statistics.StatisticsResponse;
+import searchengine.services.FeedService;
 import searchengine.services.IndexingService;
 import searchengine.services.SearchService;
 import searchengine.services.StatisticsService;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api")
 public class ApiController {
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     private final StatisticsService statisticsService;
     private final IndexingService indexingService;
     private final SearchService searchService;
+    private final FeedService feedService;
 
 
     public ApiController(StatisticsService statisticsService,
                          IndexingService indexingService,
-                         SearchService searchService) {
+                         SearchService searchService,
+                         FeedService feedService) {
         this.statisticsService = statisticsService;
         this.indexingService = indexingService;
         this.searchService = searchService;
+        this.feedService = feedService;
     }
 
     @GetMapping("/statistics")
@@ -52,14 +65,50 @@ public class ApiController {
         return ResponseEntity.ok(indexingService.addIndex(link));
     }
 
+    @PostMapping("/indexPages")
+    @ResponseBody
+    public ResponseEntity<IndexingResponse> indexPages(@RequestParam(name = "url") List<String> links) {
+        return ResponseEntity.ok(indexingService.addIndex(links));
+    }
+
+    @PostMapping("/feed")
+    @ResponseBody
+    public ResponseEntity<IndexingResponse> feed(InputStream feed) {
+        return ResponseEntity.ok(feedService.addFeed(feed));
+    }
+
     @GetMapping("/search")
     @ResponseBody
-    public ResponseEntity<SearchResponse> search(@RequestParam(name = "query") String query,
+    public CompletableFuture<ResponseEntity<SearchResponse>> search(@RequestParam(name = "query", required = false) String query,
                                                  @RequestParam(name = "site", required = false) String site,
                                                  @RequestParam(name = "offset", required = false) Integer offset,
-                                                 @RequestParam(name = "limit", required = false) Integer limit) {
-        return ResponseEntity.ok(searchService.startSearch(query, site,
+                                                 @RequestParam(name = "limit", required = false) Integer limit,
+                                                 @RequestParam(name = "cursor", required = false) String cursor,
+                                                 @RequestParam(name = "explain", defaultValue = "false")
+                                                 boolean explain,
+                                                 @RequestParam(name = "debug", defaultValue = "false")
+                                                 boolean debug) {
+        return searchService.startSearch(query, site,
                 Optional.ofNullable(offset).isPresent() ? offset : 0,
-                Optional.ofNullable(limit).isPresent() ? limit : 20));
+                Optional.ofNullable(limit).isPresent() ? limit : 20, cursor, explain, debug)
+                .handle((response, error) -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause == null) {
+                        return ResponseEntity.ok(response);
+                    } else if (cause instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(errorResponse(cause));
+                    } else if (cause instanceof TimeoutException) {
+                        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(errorResponse(cause));
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private SearchResponse errorResponse(Throwable error) {
+        SearchResponse response = new SearchResponse();
+        response.setResult(false);
+        response.setError(error.getMessage());
+        return response;
     }
 }
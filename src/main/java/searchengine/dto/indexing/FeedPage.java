@@ -0,0 +1,12 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class FeedPage {
+    private String url;
+    private String html;
+    private Instant lastModified;
+}
@@ -2,6 +2,8 @@ package searchengine.dto.indexing;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class IndexingResponse {
     public IndexingResponse(Boolean result) {
@@ -10,4 +12,6 @@ public class IndexingResponse {
 
     private Boolean result;
     private String error;
+    private Integer accepted;
+    private List<PageIndexingResult> pages;
 }
@@ -0,0 +1,14 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+@Data
+public class PageIndexingResult {
+    public PageIndexingResult(String url) {
+        this.url = url;
+    }
+
+    private String url;
+    private Boolean result;
+    private String error;
+}
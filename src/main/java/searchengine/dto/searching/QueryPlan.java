@@ -0,0 +1,18 @@
+package searchengine.dto.searching;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class QueryPlan {
+    private Integer pageTotal;
+    private Double maxFrequencyRatio;
+    private List<QueryPlanStep> steps;
+    private Boolean shortCircuit;
+    private Boolean cached;
+    private List<String> phrases;
+    private Integer phraseMatches;
+    private Integer proximityReranked;
+    private Boolean partial;
+}
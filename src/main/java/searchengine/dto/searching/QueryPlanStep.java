@@ -0,0 +1,25 @@
+package searchengine.dto.searching;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@RequiredArgsConstructor
+public class QueryPlanStep {
+    public enum Action {
+        INTERSECT, PRUNED, MISSING, VERIFIED
+    }
+
+    @NonNull
+    private String lemma;
+    @NonNull
+    private Integer frequency;
+    private Action action;
+    private Integer candidates;
+    private List<String> expansions;
+}
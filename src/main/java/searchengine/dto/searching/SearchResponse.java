@@ -11,4 +11,8 @@ public class SearchResponse {
     private Integer count;
     private List<SearchResult> data;
     private String error;
+    private String cursor;
+    private Boolean partial;
+    private QueryPlan plan;
+    private SearchTrace trace;
 }
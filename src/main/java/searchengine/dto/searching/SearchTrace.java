@@ -0,0 +1,13 @@
+package searchengine.dto.searching;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SearchTrace {
+    private Double millis;
+    private List<SearchTracePhase> phases;
+    private Integer statementCount;
+    private List<String> statements;
+}
@@ -0,0 +1,20 @@
+package searchengine.dto.searching;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@RequiredArgsConstructor
+public class SearchTracePhase {
+    @NonNull
+    private String name;
+    @NonNull
+    private Double millis;
+    @NonNull
+    private Integer rows;
+    @NonNull
+    private Integer statements;
+}
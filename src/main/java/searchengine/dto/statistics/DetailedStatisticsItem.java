@@ -11,4 +11,5 @@ public class DetailedStatisticsItem {
     private String error;
     private int pages;
     private int lemmas;
+    private Integer fetchLimit;
 }
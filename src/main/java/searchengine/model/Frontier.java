@@ -0,0 +1,33 @@
+package searchengine.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.io.Serializable;
+
+@Data
+@Entity
+@Table(name = "frontier",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_frontier_site_path", columnNames = {"site_id", "path"})})
+@NoArgsConstructor
+public class Frontier implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", insertable = false)
+    private int id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "site_id", foreignKey = @ForeignKey(name = "fk_frontier_site"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Site site;
+    @Column(name = "path", length = Page.MAX_PATH_LENGTH, nullable = false)
+    private String path;
+    @Column(name = "depth", nullable = false)
+    private int depth;
+    @Column(name = "priority", nullable = false)
+    private double priority;
+    @Column(name = "done", nullable = false)
+    private boolean done;
+}
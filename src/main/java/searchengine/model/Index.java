@@ -30,4 +30,6 @@ public class Index implements Serializable {
     @Column(name = "rank")
     @NonNull
     private float rank;
+    @Column(name = "positions", columnDefinition = "blob")
+    private byte[] positions;
 }
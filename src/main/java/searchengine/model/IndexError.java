@@ -5,7 +5,11 @@ public enum IndexError {
     NOTSTARTED("Индексация не запущена"),
     INTERRUPTED("Индексация прервана пользователем"),
     TERMINATING("Завершение индексации"),
-    PAGE_OUT_OF_CONFIG("Данная страница находится за пределами сайтов, указанных в конфигурационном файле");
+    PAGE_OUT_OF_CONFIG("Данная страница находится за пределами сайтов, указанных в конфигурационном файле"),
+    SITE_OUT_OF_CONFIG("Сайт удалён из конфигурационного файла, обход не может быть продолжен"),
+    SITE_LEASED("Сайт индексируется другим узлом"),
+    LEASE_LOST("Аренда обхода сайта перешла к другому узлу"),
+    NOT_HTML("Страница не является HTML-документом");
 
     private final String text;
 
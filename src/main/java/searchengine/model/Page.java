@@ -1,6 +1,7 @@
 package searchengine.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
 import jakarta.persistence.Index;
@@ -13,11 +14,14 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "page", indexes = {@Index(name = "idx_path", columnList = "path")},
+@Table(name = "page", indexes = {@Index(name = "idx_path", columnList = "path"),
+        @Index(name = "idx_alias_of", columnList = "alias_of")},
         uniqueConstraints = {@UniqueConstraint(name="uk_site_path", columnNames={"site_id", "path"})})
 @NoArgsConstructor(onConstructor_={@JsonCreator(mode = JsonCreator.Mode.PROPERTIES)})
 @RequiredArgsConstructor
 public class Page implements Serializable {
+    public static final int MAX_PATH_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", insertable = false)
@@ -26,7 +30,7 @@ public class Page implements Serializable {
     @JoinColumn(name = "site_id", foreignKey = @ForeignKey(name = "fk_page_site"))
     @NonNull
     private Site site;
-    @Column(name = "path")
+    @Column(name = "path", length = MAX_PATH_LENGTH)
     @NonNull
     @Pattern(regexp = "(/[\\S&&[^/]]+)*(/[\\S&&[^/.]]+)(.htm(l)?)?", message = "Correct page address")
     private String path;
@@ -36,6 +40,15 @@ public class Page implements Serializable {
     @Column(name = "content", columnDefinition = "mediumtext", nullable = false)
     @NonNull
     private String content;
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "page", orphanRemoval = true, cascade = CascadeType.REMOVE)
+    @Column(name = "fingerprint")
+    private Long fingerprint;
+    @Column(name = "alias_of")
+    private Integer aliasOf;
+    @Column(name = "last_modified")
+    private Long lastModified;
+    @OneToMany(mappedBy = "page", orphanRemoval = true, cascade = CascadeType.REMOVE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @JsonIgnore
     private List<searchengine.model.Index> indices = new ArrayList<>();
 }
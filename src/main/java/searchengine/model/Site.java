@@ -43,6 +43,10 @@ public class Site implements Serializable {
     @ColumnDefault("NULL")
     @OptimisticLock(excluded = true)
     private String lastError;
+    @Column(name = "index_version", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @OptimisticLock(excluded = true)
+    private long indexVersion;
     @Column(name = "url", unique = true, nullable = false, updatable = false)
     @NonNull
     private String url;
@@ -0,0 +1,32 @@
+package searchengine.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Аренда обхода сайта узлом {@code owner}; истёкшую аренду может захватить любой другой узел.
+ */
+@Data
+@Entity
+@Table(name = "site_lease")
+@NoArgsConstructor
+public class SiteLease implements Serializable {
+    @Id
+    @Column(name = "site_id")
+    private int siteId;
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "site_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_site_lease_site"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Site site;
+    @Column(name = "owner", nullable = false)
+    private String owner;
+    @Column(name = "expires_at", columnDefinition = "timestamp(3)", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,42 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.Frontier;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.storage.FrontierItem;
+
+import java.util.List;
+
+@Repository
+public interface FrontierRepository extends JpaRepository<Frontier, Integer> {
+    @Query("select new searchengine.storage.FrontierItem(frontier.path, frontier.depth, frontier.priority, " +
+            "frontier.done) from Frontier as frontier where frontier.site = :site")
+    List<FrontierItem> getFrontier(@Param("site") Site site);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO frontier (site_id, path, depth, priority, done) " +
+            "SELECT :site, t.path, t.depth, t.priority, false FROM JSON_TABLE(:data, '$[*]' COLUMNS " +
+            "(path VARCHAR(" + Page.MAX_PATH_LENGTH + ") PATH '$.path' ERROR ON ERROR, depth INT PATH '$.depth', " +
+            "priority DOUBLE PATH '$.priority')) t ON DUPLICATE KEY UPDATE frontier.depth = frontier.depth",
+            nativeQuery = true)
+    void insertAll(@Param("site") int siteId, @Param("data") String data);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE frontier f JOIN JSON_TABLE(:data, '$[*]' COLUMNS (path VARCHAR(" + Page.MAX_PATH_LENGTH +
+            ") PATH '$' ERROR ON ERROR)) t ON f.path = t.path SET f.done = true WHERE f.site_id = :site",
+            nativeQuery = true)
+    void markDone(@Param("site") int siteId, @Param("data") String data);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Frontier where site = :site")
+    void deleteAllBySite(@Param("site") Site site);
+}
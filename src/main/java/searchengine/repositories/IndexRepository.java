@@ -6,24 +6,52 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.Index;
-import searchengine.model.Lemma;
-import searchengine.model.Page;
+import searchengine.storage.LemmaPosting;
+import searchengine.storage.PagePositions;
+import searchengine.storage.PagePosting;
+import searchengine.storage.Posting;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface IndexRepository extends JpaRepository<Index, Integer> {
-    List<Index> findByLemmaIn(List<Lemma> lemmaList);
-    List<Index> findByPageInAndLemmaIn(List<Page> pageList, List<Lemma> lemmaList);
+    @Query("select new searchengine.storage.Posting(ind.page.id, ind.rank) from Index as ind " +
+            "where ind.lemma.id in :data")
+    List<Posting> getPostingsFromLemmaIdIn(List<Integer> data);
 
-    @Query("select ind.page from Index as ind where ind in :data")
-    List<Page> getPagesFromIndexIn(List<Index> data);
+    @Query("select new searchengine.storage.PagePositions(ind.page.id, ind.positions) from Index as ind " +
+            "where ind.lemma.id in :lemmaIds and ind.page.id in :pageIds")
+    List<PagePositions> getPositions(List<Integer> lemmaIds, Collection<Integer> pageIds);
+
+    @Query("select new searchengine.storage.LemmaPosting(ind.lemma.id, ind.page.id, ind.rank, ind.positions) " +
+            "from Index as ind where ind.lemma.id in :data")
+    List<LemmaPosting> getLemmaPostings(Collection<Integer> data);
+
+    @Query("select new searchengine.storage.PagePosting(ind.lemma.id, ind.lemma.lemma, ind.rank, ind.positions) " +
+            "from Index as ind where ind.page.id = :pageId")
+    List<PagePosting> getPagePostings(int pageId);
 
     @Transactional
     @Modifying
-    @Query(value = "INSERT INTO `index` (page_id, lemma_id, `rank`) " +
-            "SELECT ind.* FROM JSON_TABLE(:data, '$[*]'" +
-            " COLUMNS (page_id INT PATH '$.page_id', lemma_id INT PATH '$.lemma_id', `rank` FLOAT PATH '$.rank')) ind",
+    @Query(value = "INSERT INTO `index` (page_id, lemma_id, `rank`, positions) " +
+            "SELECT ind.page_id, ind.lemma_id, ind.`rank`, FROM_BASE64(ind.positions) FROM JSON_TABLE(:data, '$[*]'" +
+            " COLUMNS (page_id INT PATH '$.page_id', lemma_id INT PATH '$.lemma_id', `rank` FLOAT PATH '$.rank'," +
+            " positions TEXT PATH '$.positions')) ind",
             nativeQuery = true)
     void insertAll(String data);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE `index` i JOIN JSON_TABLE(:data, '$[*]'" +
+            " COLUMNS (page_id INT PATH '$.page_id', lemma_id INT PATH '$.lemma_id', `rank` FLOAT PATH '$.rank'," +
+            " positions TEXT PATH '$.positions')) ind ON i.page_id = ind.page_id AND i.lemma_id = ind.lemma_id " +
+            "SET i.`rank` = ind.`rank`, i.positions = FROM_BASE64(ind.positions)", nativeQuery = true)
+    void updateAll(String data);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE i FROM `index` i JOIN JSON_TABLE(:data, '$[*]' COLUMNS (id INT PATH '$')) t " +
+            "ON i.lemma_id = t.id WHERE i.page_id = :pageId", nativeQuery = true)
+    void deleteAllByPage(int pageId, String data);
 }
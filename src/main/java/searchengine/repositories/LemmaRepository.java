@@ -3,21 +3,37 @@ package searchengine.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.Lemma;
 import searchengine.model.Site;
+import searchengine.storage.TermId;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LemmaRepository extends JpaRepository<Lemma, Integer> {
-    List<Lemma> findBySiteInAndLemma(List<Site> siteList, String lemma);
-
     Integer countAllBySite(Site site);
 
     @Transactional
     @Modifying
-    @Query("UPDATE Lemma lemma SET lemma.frequency = lemma.frequency + :delta WHERE lemma IN :data")
-    void updateFrequencies(List<Lemma> data, int delta);
+    @Query(value = "UPDATE lemma l JOIN JSON_TABLE(:data, '$[*]' COLUMNS (id INT PATH '$')) t ON l.id = t.id " +
+            "SET l.frequency = l.frequency + :delta", nativeQuery = true)
+    void updateFrequenciesById(@Param("data") String data, @Param("delta") int delta);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO lemma (site_id, lemma, frequency) SELECT :site, t.lemma, 0 " +
+            "FROM JSON_TABLE(:data, '$[*]' COLUMNS (lemma VARCHAR(255) PATH '$')) t", nativeQuery = true)
+    void insertAll(@Param("site") int siteId, @Param("data") String data);
+
+    @Query("select new searchengine.storage.TermId(lemma.id, lemma.lemma, lemma.frequency) from Lemma as lemma " +
+            "where lemma.site = :site and lemma.lemma in :lemmas")
+    List<TermId> getTermIds(@Param("site") Site site, @Param("lemmas") Collection<String> lemmas);
+
+    @Query("select new searchengine.storage.TermId(lemma.id, lemma.lemma, lemma.frequency) from Lemma as lemma " +
+            "where lemma.site = :site")
+    List<TermId> getTermIds(@Param("site") Site site);
 }
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.Page;
 import searchengine.model.Site;
+import searchengine.storage.PageFingerprint;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,14 +17,38 @@ import java.util.Optional;
 public interface PageRepository extends JpaRepository<Page, Integer> {
     Optional<Page> findBySiteAndPath(Site site, String path);
 
+    List<Page> findAllBySite(Site site);
+
     Integer countAllBySite(Site site);
-    Integer countAllBySiteIn(List<Site> siteList);
+
+    List<Page> findAllByAliasOf(Integer aliasOf);
+
+    @Query("select p from Page as p, Frontier as f where f.site = :site and f.done = false " +
+            "and p.site = f.site and p.path = f.path")
+    List<Page> findAllUnfinished(@Param("site") Site site);
+
+    @Query("select new searchengine.storage.PageFingerprint(p.id, p.fingerprint) from Page as p " +
+            "where p.site = :site and p.aliasOf is null and p.fingerprint is not null")
+    List<PageFingerprint> getFingerprints(@Param("site") Site site);
+
+    @Transactional
+    @Modifying
+    @Query("update Page set fingerprint = :fingerprint, aliasOf = :aliasOf where id = :id")
+    void updateFingerprint(@Param("id") Integer id, @Param("fingerprint") Long fingerprint,
+                           @Param("aliasOf") Integer aliasOf);
+
+    @Transactional
+    @Modifying
+    @Query("update Page set code = :code, content = :content, lastModified = :lastModified where id = :id")
+    void updateContent(@Param("id") Integer id, @Param("code") int code, @Param("content") String content,
+                       @Param("lastModified") Long lastModified);
 
     @Transactional
     @Modifying
-    @Query(value = "INSERT INTO `page` (site_id, `path`, `code`, content) " +
+    @Query(value = "INSERT INTO `page` (site_id, `path`, `code`, content, last_modified) " +
             "SELECT pg.* FROM JSON_TABLE(:data, " +
             "'$[*]' COLUMNS (site_id INT PATH '$.site.id', `path` TEXT PATH '$.path', `code` INT PATH '$.code', " +
-            "content MEDIUMTEXT PATH '$.content')) pg", nativeQuery = true)
+            "content MEDIUMTEXT PATH '$.content', last_modified BIGINT PATH '$.lastModified')) pg",
+            nativeQuery = true)
     void insertAll(@Param("data") String data);
 }
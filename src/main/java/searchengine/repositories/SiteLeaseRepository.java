@@ -0,0 +1,39 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.SiteLease;
+
+/**
+ * Сроки аренды считаются по часам базы данных, поэтому расхождение часов узлов на них не влияет.
+ */
+@Repository
+public interface SiteLeaseRepository extends JpaRepository<SiteLease, Integer> {
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO site_lease (site_id, owner, expires_at) " +
+            "VALUES (:site, :owner, NOW(3) + INTERVAL :duration * 1000 MICROSECOND)", nativeQuery = true)
+    int insertLease(@Param("site") int siteId, @Param("owner") String owner, @Param("duration") long duration);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE site_lease " +
+            "SET owner = :owner, expires_at = NOW(3) + INTERVAL :duration * 1000 MICROSECOND " +
+            "WHERE site_id = :site AND (owner = :owner OR expires_at < NOW(3))", nativeQuery = true)
+    int takeOverLease(@Param("site") int siteId, @Param("owner") String owner, @Param("duration") long duration);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE site_lease SET expires_at = NOW(3) + INTERVAL :duration * 1000 MICROSECOND " +
+            "WHERE site_id = :site AND owner = :owner", nativeQuery = true)
+    int renewLease(@Param("site") int siteId, @Param("owner") String owner, @Param("duration") long duration);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM site_lease WHERE site_id = :site AND owner = :owner", nativeQuery = true)
+    void releaseLease(@Param("site") int siteId, @Param("owner") String owner);
+}
@@ -22,4 +22,9 @@ public interface SiteRepository extends JpaRepository<Site, Integer> {
     void updateStatus(@Param("id") Integer id, @Param("status") IndexStatus status, @Param("error") String error);
 
     Boolean existsByStatusIs(IndexStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("update Site set indexVersion = indexVersion + 1 where id = :id")
+    void incrementIndexVersion(@Param("id") Integer id);
 }
@@ -0,0 +1,9 @@
+package searchengine.services;
+
+import searchengine.dto.indexing.IndexingResponse;
+
+import java.io.InputStream;
+
+public interface FeedService {
+    IndexingResponse addFeed(InputStream feed);
+}
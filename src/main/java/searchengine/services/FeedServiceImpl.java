@@ -0,0 +1,209 @@
+package searchengine.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import searchengine.config.FeedSettings;
+import searchengine.dto.indexing.FeedPage;
+import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.PageIndexingResult;
+import searchengine.model.IndexError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class FeedServiceImpl implements FeedService {
+    private static final String FEED_EXTENSION = ".ndjson";
+    private static final String DONE = "done";
+    private static final String FAILED = "failed";
+
+    @Autowired
+    private final FeedSettings settings;
+    @Autowired
+    private final IndexingService indexingService;
+    @Autowired
+    private final ObjectMapper objectMapper;
+
+    private record Entry(FeedPage page, SpoolFile source) {}
+
+    private BlockingQueue<Entry> queue;
+    private WatchService watcher;
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    private void start() throws IOException {
+        queue = new ArrayBlockingQueue<>(Math.max(settings.getQueueCapacity(), 1));
+        workers.submit(this::indexQueue);
+        if (!settings.getSpool().isBlank()) {
+            Path spool = Path.of(settings.getSpool());
+            Files.createDirectories(spool.resolve(DONE));
+            Files.createDirectories(spool.resolve(FAILED));
+            watcher = spool.getFileSystem().newWatchService();
+            spool.register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+            workers.submit(() -> watchSpool(spool));
+        }
+    }
+
+    @PreDestroy
+    private void stop() throws IOException {
+        workers.shutdownNow();
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    public IndexingResponse addFeed(InputStream feed) {
+        IndexingResponse response = new IndexingResponse(true);
+        int[] accepted = new int[1];
+        try {
+            read(feed, accepted, null);
+        } catch (IOException | RuntimeException e) {
+            response.setResult(false);
+            response.setError(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setResult(false);
+            response.setError(IndexError.INTERRUPTED.toString());
+        }
+        response.setAccepted(accepted[0]);
+        return response;
+    }
+
+    private void read(InputStream feed, int[] accepted, SpoolFile source) throws IOException, InterruptedException {
+        ObjectReader reader = objectMapper.readerFor(FeedPage.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(feed, StandardCharsets.UTF_8));
+        int number = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            number++;
+            if (line.isBlank()) {
+                continue;
+            }
+            FeedPage page;
+            try {
+                page = reader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Строка " + number + ": " + e.getOriginalMessage());
+            }
+            if (page.getUrl() == null || page.getHtml() == null) {
+                throw new IllegalArgumentException("Строка " + number + ": нет адреса или содержимого страницы");
+            }
+            if (source != null) {
+                source.pending.incrementAndGet();
+            }
+            queue.put(new Entry(page, source));
+            accepted[0]++;
+        }
+    }
+
+    private void indexQueue() {
+        List<Entry> batch = new ArrayList<>(settings.getBatchSize());
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, Math.max(settings.getBatchSize(), 1) - 1);
+                IndexingResponse response = indexingService.addContent(batch.stream().map(Entry::page).toList());
+                Set<String> failed = response.getPages().stream().filter(page -> !page.getResult())
+                        .map(PageIndexingResult::getUrl).collect(Collectors.toSet());
+                batch.stream().filter(entry -> entry.source() != null && failed.contains(entry.page().getUrl()))
+                        .forEach(entry -> entry.source().failed = true);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // ошибка пакета не останавливает приём ленты
+                batch.stream().filter(entry -> entry.source() != null).forEach(entry -> entry.source().failed = true);
+            } finally {
+                batch.stream().filter(entry -> entry.source() != null).forEach(entry -> entry.source().release());
+                batch.clear();
+            }
+        }
+    }
+
+    private void watchSpool(Path spool) {
+        try {
+            readSpool(spool);
+            while (true) {
+                WatchKey key = watcher.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        readSpool(spool);
+                    } else {
+                        readFile(spool.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // приложение останавливается
+        }
+    }
+
+    private void readSpool(Path spool) throws InterruptedException {
+        try (Stream<Path> list = Files.list(spool)) {
+            for (Path file : list.sorted().toList()) {
+                readFile(file);
+            }
+        } catch (IOException ignored) {
+            // файлы будут прочитаны при следующем событии каталога
+        }
+    }
+
+    private void readFile(Path file) throws InterruptedException {
+        if (!file.getFileName().toString().endsWith(FEED_EXTENSION) || !Files.isRegularFile(file)
+                || !inFlight.add(file)) {
+            return;
+        }
+        SpoolFile source = new SpoolFile(file);
+        try (InputStream feed = Files.newInputStream(file)) {
+            read(feed, new int[1], source);
+        } catch (IOException | RuntimeException e) {
+            source.failed = true;
+        }
+        source.release();
+    }
+
+    private class SpoolFile {
+        private final Path file;
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile boolean failed;
+
+        private SpoolFile(Path file) {
+            this.file = file;
+        }
+
+        private void release() {
+            if (pending.decrementAndGet() > 0) {
+                return;
+            }
+            try {
+                Files.move(file, file.resolveSibling(failed ? FAILED : DONE).resolve(file.getFileName()),
+                        StandardCopyOption.REPLACE_EXISTING);
+                inFlight.remove(file);
+            } catch (IOException ignored) {
+                // файл будет прочитан повторно при следующем запуске
+            }
+        }
+    }
+}
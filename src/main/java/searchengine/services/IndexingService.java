@@ -1,9 +1,16 @@
 package searchengine.services;
 
+import searchengine.dto.indexing.FeedPage;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.model.Site;
+
+import java.util.List;
 
 public interface IndexingService {
     IndexingResponse fullIndex();
     IndexingResponse stopIndex();
     IndexingResponse addIndex(String link);
+    IndexingResponse addIndex(List<String> links);
+    IndexingResponse addContent(List<FeedPage> pages);
+    Integer getFetchLimit(Site site);
 }
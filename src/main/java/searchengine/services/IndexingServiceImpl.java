@@ -1,29 +1,40 @@
 package searchengine.services;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.gargoylesoftware.htmlunit.BrowserVersion;
-import com.gargoylesoftware.htmlunit.WebClient;
-import com.gargoylesoftware.htmlunit.WebResponse;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import searchengine.config.SiteList;
+import searchengine.dto.indexing.FeedPage;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.PageIndexingResult;
 import searchengine.model.*;
-import searchengine.repositories.IndexRepository;
-import searchengine.repositories.LemmaRepository;
-import searchengine.repositories.PageRepository;
-import searchengine.repositories.SiteRepository;
-import searchengine.utils.SiteWalk;
-import searchengine.utils.SplitToLemmas;
+import searchengine.storage.FrontierItem;
+import searchengine.storage.IndexStore;
+import searchengine.storage.PageStore;
+import searchengine.utils.CrawlFrontier;
+import searchengine.utils.DuplicateIndex;
+import searchengine.utils.FetchLimiter;
+import searchengine.utils.HtmlExtractor;
+import searchengine.utils.LemmaAnalyzer;
+import searchengine.utils.PageFetcher;
+import searchengine.utils.PageText;
+import searchengine.utils.RobotsRules;
+import searchengine.utils.SimHash;
+import searchengine.utils.SitemapReader;
+import searchengine.utils.TermFrequencies;
+import searchengine.utils.UrlNormalizer;
 
 import java.io.IOException;
 import java.net.*;
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -31,53 +42,44 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class IndexingServiceImpl implements IndexingService  {
     @Autowired
-    private final SiteRepository siteRepository;
+    private final PageStore pageStore;
     @Autowired
-    private final PageRepository pageRepository;
+    private final IndexStore indexStore;
     @Autowired
-    private final LemmaRepository lemmaRepository;
-    @Autowired
-    private final IndexRepository indexRepository;
+    private final LemmaAnalyzer analyzer;
 
     @Autowired
     private SiteList sites;
     private final int PAGES_CHUNK = 250;
+    private final int MIN_FINGERPRINT_LEMMAS = 10;
 
-    private ForkJoinPool taskPool = new ForkJoinPool();
+    private volatile ForkJoinPool taskPool = new ForkJoinPool();
     private final Vector<ForkJoinTask<?>> TASKS = new Vector<>();
+    private final Map<Integer, DuplicateIndex> duplicates = new ConcurrentHashMap<>();
+    private final Map<Integer, FetchLimiter> limiters = new ConcurrentHashMap<>();
+    private final ExecutorService fetcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Integer> leased = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, ForkJoinTask<?>> crawls = new ConcurrentHashMap<>();
+    private final Set<Integer> lostLeases = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService leaseScheduler = Executors.newSingleThreadScheduledExecutor();
 
-    private final Optional<SplitToLemmas> splitterEng = Optional.ofNullable(SplitToLemmas.getInstanceEng());
-    private final Optional<SplitToLemmas> splitterRus = Optional.ofNullable(SplitToLemmas.getInstanceRus());
-
-    private final Set<Lemma> lemmaBuffer = ConcurrentHashMap.newKeySet();
-    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private record PageContent(int code, String html, Long lastModified) {}
 
-    private final WebClient webClient = new WebClient(BrowserVersion.FIREFOX);
+    private final HttpClient httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10)).build();
 
     public IndexingResponse fullIndex() {
         IndexingResponse result = new IndexingResponse(true);
-        if (!siteRepository.existsByStatusIs(IndexStatus.INDEXING)) {
-            siteRepository.findAll().stream().map(Site::getId).peek(id ->
-                    siteRepository.updateStatus(id, IndexStatus.INDEXING,null)).forEach(siteRepository::deleteById);
-            sites.getSites().forEach(config -> TASKS.add(taskPool.submit(() ->{
-                List<URI> urlBuffer = new ArrayList<>() {{ add(URI.create(config.getUrl())); }};
-                Site siteEntity = serializeSite(urlBuffer.get(0).toString(), config.getName());
-                    try {
-                        serializePages(siteEntity, urlBuffer);
-                        walkTask(urlBuffer, urlBuffer, siteEntity).filter(Objects::nonNull).map(pageEntity ->
-                                taskPool.submit(() -> serializeIndex(pageEntity))).peek(TASKS::add).forEach(task -> {
-                                    try {
-                                        task.join();
-                                        TASKS.remove(task);
-                                    } catch (CancellationException e) {
-                                        throw new CancellationException(IndexError.INTERRUPTED.toString());
-                                    }
-                                });
-                        siteRepository.updateStatus(siteEntity.getId(), IndexStatus.INDEXED, null);
-                    } catch (RuntimeException e) {
-                        siteRepository.updateStatus(siteEntity.getId(), IndexStatus.FAILED, e.getMessage());
-                    }
-            })));
+        if (!pageStore.existsByStatus(IndexStatus.INDEXING)) {
+            pageStore.getSites().stream().peek(indexStore::removeSite)
+                    .peek(siteEntity -> duplicates.remove(siteEntity.getId()))
+                    .peek(siteEntity -> limiters.remove(siteEntity.getId())).peek(siteEntity ->
+                    pageStore.updateStatus(siteEntity, IndexStatus.INDEXING,null)).forEach(pageStore::removeSite);
+            sites.getSites().forEach(config -> {
+                Site siteEntity = serializeSite(URI.create(config.getUrl()).toString(), config.getName());
+                duplicates.put(siteEntity.getId(), new DuplicateIndex(sites.getDuplicateDistance()));
+            });
+            claimSites(pageStore.getSites());
         } else {
             result.setResult(false);
             result.setError(IndexError.STARTED.toString());
@@ -85,20 +87,144 @@ public class IndexingServiceImpl implements IndexingService  {
         return result;
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLeasing() {
+        leaseScheduler.scheduleWithFixedDelay(this::heartbeat, 0, sites.getHeartbeatInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void stopLeasing() {
+        leaseScheduler.shutdown();
+        fetcher.shutdownNow();
+    }
+
+    private void heartbeat() {
+        try {
+            List<Site> siteList = pageStore.getSites();
+            Map<Integer, Site> siteMap = siteList.stream().collect(Collectors.toMap(Site::getId, site -> site));
+            leased.forEach(id -> {
+                Site siteEntity = siteMap.get(id);
+                if (siteEntity == null || !pageStore.renewLease(siteEntity, sites.getNodeId(), sites.getLeaseDuration())
+                        || crawls.containsKey(id) && siteEntity.getStatus() != IndexStatus.INDEXING) {
+                    lostLeases.add(id);
+                }
+            });
+            claimSites(siteList);
+        } catch (RuntimeException ignored) {
+            // повторная попытка при следующем запуске
+        }
+    }
+
+    private synchronized void claimSites(List<Site> siteList) {
+        ForkJoinPool pool = taskPool;
+        for (Site siteEntity : siteList) {
+            if (crawls.size() >= sites.getMaxLeasedSites() || pool.isShutdown()) {
+                return;
+            }
+            if (siteEntity.getStatus() != IndexStatus.INDEXING || !leased.add(siteEntity.getId())) {
+                continue;
+            }
+            if (!pageStore.acquireLease(siteEntity, sites.getNodeId(), sites.getLeaseDuration())) {
+                leased.remove(siteEntity.getId());
+                continue;
+            }
+            Optional<Site> current = pageStore.getSite(siteEntity.getUrl())
+                    .filter(stored -> stored.getStatus() == IndexStatus.INDEXING);
+            Optional<SiteList.SiteRecord> config = sites.getSites().stream()
+                    .filter(record -> URI.create(record.getUrl()).toString().equals(siteEntity.getUrl())).findFirst();
+            if (current.isEmpty() || config.isEmpty()) {
+                current.ifPresent(stored -> pageStore.updateStatus(stored, IndexStatus.FAILED,
+                        IndexError.SITE_OUT_OF_CONFIG.toString()));
+                releaseLease(siteEntity);
+                continue;
+            }
+            lostLeases.remove(siteEntity.getId());
+            ForkJoinTask<?> task = pool.submit(() -> {
+                try {
+                    crawlSite(config.get(), current.get(), pageStore.getFrontier(current.get()));
+                } finally {
+                    finishCrawl(current.get());
+                }
+            });
+            crawls.put(siteEntity.getId(), task);
+            TASKS.add(task);
+        }
+    }
+
+    private synchronized void finishCrawl(Site siteEntity) {
+        TASKS.remove(crawls.remove(siteEntity.getId()));
+        releaseLease(siteEntity);
+        if (!taskPool.isShutdown()) {
+            claimSites(pageStore.getSites());
+        }
+    }
+
+    private void releaseLease(Site siteEntity) {
+        try {
+            pageStore.releaseLease(siteEntity, sites.getNodeId());
+        } finally {
+            leased.remove(siteEntity.getId());
+        }
+    }
+
+    private void crawlSite(SiteList.SiteRecord config, Site siteEntity, List<FrontierItem> checkpoint) {
+        try {
+            CrawlFrontier frontier = createFrontier(config, siteEntity, checkpoint);
+            while (!frontier.isExhausted()) {
+                if (lostLeases.contains(siteEntity.getId())) {
+                    throw new CancellationException(IndexError.LEASE_LOST.toString());
+                }
+                List<CrawlFrontier.Entry> walkSet = frontier.poll(PAGES_CHUNK);
+                walkTask(walkSet, siteEntity, frontier).map(page ->
+                        taskPool.submit(() -> serializeIndex(page.getKey(), page.getValue()))).peek(TASKS::add)
+                        .forEach(task -> {
+                            try {
+                                task.join();
+                                TASKS.remove(task);
+                            } catch (CancellationException e) {
+                                throw new CancellationException(IndexError.INTERRUPTED.toString());
+                            }
+                        });
+                if (!pageStore.renewLease(siteEntity, sites.getNodeId(), sites.getLeaseDuration())) {
+                    lostLeases.add(siteEntity.getId());
+                    throw new CancellationException(IndexError.LEASE_LOST.toString());
+                }
+                indexStore.flush(siteEntity);
+                List<FrontierItem> offered = frontier.drainOffered().stream().map(entry ->
+                        new FrontierItem(getPath(entry.url()), entry.depth(), entry.priority(), false)).toList();
+                pageStore.saveFrontier(siteEntity, offered, walkSet.stream().map(entry -> getPath(entry.url())).toList());
+            }
+            indexStore.flush(siteEntity);
+            pageStore.removeFrontier(siteEntity);
+            pageStore.updateStatus(siteEntity, IndexStatus.INDEXED, null);
+        } catch (RuntimeException e) {
+            if (!lostLeases.remove(siteEntity.getId())) {
+                pageStore.updateStatus(siteEntity, IndexStatus.FAILED, e.getMessage());
+            }
+        }
+    }
+
     public  IndexingResponse stopIndex() {
         IndexingResponse response = new IndexingResponse(false);
 
-        if (TASKS.isEmpty()) {
+        if (TASKS.isEmpty() && !pageStore.existsByStatus(IndexStatus.INDEXING)) {
             response.setError(IndexError.NOTSTARTED.toString());
         } else if(taskPool.isTerminating()) {
             response.setError(IndexError.TERMINATING.toString());
         } else {
+            // другие узлы прекратят обход, не сумев продлить аренду сайта не в статусе INDEXING
+            pageStore.getSites().stream().filter(siteEntity -> siteEntity.getStatus() == IndexStatus.INDEXING)
+                    .forEach(siteEntity -> pageStore.updateStatus(siteEntity, IndexStatus.FAILED,
+                            IndexError.INTERRUPTED.toString()));
             taskPool.shutdownNow();
             while(!taskPool.isTerminated()) {
                 TASKS.forEach(task -> task
                         .completeExceptionally(new CancellationException(IndexError.INTERRUPTED.toString())));
             }
             TASKS.clear();
+            pageStore.getSites().stream().filter(siteEntity -> crawls.remove(siteEntity.getId()) != null)
+                    .forEach(this::releaseLease);
             taskPool = new ForkJoinPool();
             response.setResult(true);
         }
@@ -106,24 +232,52 @@ public class IndexingServiceImpl implements IndexingService  {
         return response;
     }
 
-    private Stream<Page> walkTask(List<URI> urlBuffer, List<URI> walkSet, Site siteEntity) {
+    private CrawlFrontier createFrontier(SiteList.SiteRecord config, Site siteEntity,
+                                         List<FrontierItem> checkpoint) {
+        URI root = URI.create(config.getUrl());
+        RobotsRules robots = RobotsRules.fetch(httpClient, root, sites.getUserAgent());
+        UrlNormalizer normalizer = new UrlNormalizer(root.toString(), sites.getQueryParameters());
+        CrawlFrontier frontier = new CrawlFrontier(normalizer, robots, sites.getMaxPages(config),
+                sites.getMaxDepth(config), sites.getCrawlTimeout());
+        (checkpoint.isEmpty() ? pageStore.getPages(siteEntity) : pageStore.getUnfinishedPages(siteEntity))
+                .forEach(pageEntity -> {
+                    getDuplicates(siteEntity).remove(pageEntity.getId());
+                    indexStore.removePostings(pageEntity);
+                    pageStore.removePage(pageEntity);
+                });
+        if (!checkpoint.isEmpty()) {
+            checkpoint.forEach(item -> frontier.restore(normalizer.getBaseAddress() + item.path(), item.depth(),
+                    item.priority(), item.done()));
+            return frontier;
+        }
+        frontier.offer(normalizer.normalize(root.toString()), 0, CrawlFrontier.priority(0));
+        new SitemapReader(httpClient, sites.getUserAgent()).read(robots.getSitemaps().isEmpty()
+                        ? List.of(root.resolve("/sitemap.xml")) : robots.getSitemaps().stream().map(URI::create).toList(),
+                (url, priority) -> {
+                    frontier.offer(normalizer.normalize(url.toString()), 1, priority);
+                    return !frontier.isFull();
+                });
+        return frontier;
+    }
+
+    private Stream<Map.Entry<Page, PageText>> walkTask(List<CrawlFrontier.Entry> walkSet, Site siteEntity,
+                                                       CrawlFrontier frontier) {
         try {
-            List<URI> children = walkSet.stream().map(URI::getPath).map(path -> path.isEmpty() ? "/" : path)
-                    .map(path -> pageRepository.findBySiteAndPath(siteEntity, path).orElse(null))
-                    .filter(Objects::nonNull)
-                    .map(pageEntity -> taskPool.submit(new SiteWalk(urlBuffer, pageEntity, siteEntity.getUrl())))
-                    .peek(TASKS::add).flatMap(task -> {
-                        Stream<String> result = task.join();
-                        TASKS.remove(task);
-                        return result;
-                    }).distinct().map(URI::create).toList();
-            if (children.isEmpty()) {
-                return urlBuffer.stream().map(URI::getPath).map(path -> path.isEmpty() ? "/" : path)
-                        .map(path -> pageRepository.findBySiteAndPath(siteEntity, path).orElse(null));
-            } else {
-                serializePages(siteEntity, children);
-                return walkTask(Stream.concat(urlBuffer.stream(), children.stream()).toList(), children, siteEntity);
-            }
+            Map<String, HtmlExtractor.Content> contents = serializePages(siteEntity,
+                    walkSet.stream().map(CrawlFrontier.Entry::url).toList(), frontier::await);
+            List<Map.Entry<Page, PageText>> pages = new ArrayList<>();
+            walkSet.forEach(entry -> {
+                String path = getPath(entry.url());
+                HtmlExtractor.Content content = contents.get(path);
+                Optional<Page> page = content == null ? Optional.empty() : pageStore.getPage(siteEntity, path);
+                page.ifPresent(pageEntity -> {
+                    int depth = entry.depth() + 1;
+                    getLinks(frontier.getNormalizer(), path, content)
+                            .forEach(link -> frontier.offer(link, depth, CrawlFrontier.priority(depth)));
+                    pages.add(Map.entry(pageEntity, content.text()));
+                });
+            });
+            return pages.stream();
         } catch(CancellationException e) {
             throw new CancellationException(IndexError.INTERRUPTED.toString());
         } catch (RuntimeException e) {
@@ -131,112 +285,269 @@ public class IndexingServiceImpl implements IndexingService  {
         }
     }
 
+    private Stream<String> getLinks(UrlNormalizer normalizer, String path, HtmlExtractor.Content content) {
+        String address = normalizer.getBaseAddress() + path;
+        String basePath = Optional.ofNullable(content.base()).map(base -> normalizer.resolveBase(path, base))
+                .orElse(path);
+        return content.links().stream().map(link -> normalizer.normalize(basePath, link))
+                .filter(link -> link != null && !link.equals(address)).distinct();
+    }
+
     public IndexingResponse addIndex(String link) {
-        IndexingResponse result = new IndexingResponse(false);
+        IndexingResponse batch = addIndex(List.of(link));
+        IndexingResponse result = new IndexingResponse(batch.getResult());
+        result.setError(batch.getError());
+        return result;
+    }
+
+    public IndexingResponse addIndex(List<String> links) {
+        PageFetcher pageFetcher = new PageFetcher(httpClient, sites);
+        return reindex(links, link -> fetcher.submit(() -> {
+            PageFetcher.Response response = pageFetcher.fetch(URI.create(link));
+            if (!response.isPage()) {
+                throw new RuntimeException(IndexError.NOT_HTML.toString());
+            }
+            return new PageContent(response.code(), response.html(), null);
+        }));
+    }
+
+    public IndexingResponse addContent(List<FeedPage> pages) {
+        Map<String, FeedPage> latest = new LinkedHashMap<>();
+        pages.forEach(page -> latest.merge(page.getUrl(), page, (current, next) -> current.getLastModified() != null
+                && next.getLastModified() != null && next.getLastModified().isBefore(current.getLastModified())
+                ? current : next));
+        return reindex(List.copyOf(latest.keySet()), link -> {
+            FeedPage page = latest.get(link);
+            return CompletableFuture.completedFuture(new PageContent(HttpURLConnection.HTTP_OK, page.getHtml(),
+                    page.getLastModified() == null ? null : page.getLastModified().toEpochMilli()));
+        });
+    }
+
+    private IndexingResponse reindex(List<String> links, Function<String, Future<PageContent>> loader) {
+        Map<String, PageIndexingResult> results = new LinkedHashMap<>();
+        Map<String, List<PageIndexingResult>> waiting = new HashMap<>();
+        Map<SiteList.SiteRecord, Map<String, Future<PageContent>>> contents = new LinkedHashMap<>();
+        for (String link : links) {
+            if (results.containsKey(link)) {
+                continue;
+            }
+            PageIndexingResult result = new PageIndexingResult(link);
+            results.put(link, result);
+            try {
+                resolveLink(link).ifPresentOrElse(page -> {
+                    waiting.computeIfAbsent(page.getValue(), url -> new ArrayList<>()).add(result);
+                    contents.computeIfAbsent(page.getKey(), config -> new LinkedHashMap<>())
+                            .computeIfAbsent(page.getValue(), url -> loader.apply(link));
+                }, () -> result.setError(IndexError.PAGE_OUT_OF_CONFIG.toString()));
+            } catch (RuntimeException e) {
+                result.setError(e.getMessage());
+            }
+        }
+        contents.forEach((config, pages) -> reindexPages(config, pages).forEach((url, error) ->
+                waiting.get(url).forEach(result -> result.setError(error))));
+        results.values().forEach(result -> result.setResult(result.getError() == null));
+        IndexingResponse response = new IndexingResponse(results.values().stream()
+                .allMatch(PageIndexingResult::getResult));
+        response.setError(results.values().stream().map(PageIndexingResult::getError).filter(Objects::nonNull)
+                .findFirst().orElse(null));
+        response.setPages(List.copyOf(results.values()));
+        return response;
+    }
+
+    private Map<String, String> reindexPages(SiteList.SiteRecord config, Map<String, Future<PageContent>> pages) {
+        Map<String, String> errors = new HashMap<>();
+        Site siteEntity;
+        boolean ownLease;
         try {
-            URI url = URI.create(link);
-            String path = url.getPath();
-            Map<String, String> siteConfig = getConfigSite(url.getScheme() + "://" + url.getHost());
-            if (!siteConfig.isEmpty()) {
-                Map.Entry<String, String> configEntry = siteConfig.entrySet().iterator().next();
-                Site siteEntity = serializeSite(configEntry.getKey(), configEntry.getValue());
-                pageRepository.findBySiteAndPath(siteEntity, path).ifPresent(pageEntity -> {
-                    decreaseFrequencies(pageEntity.getIndices().stream().map(Index::getLemma).toList());
-                    pageRepository.delete(pageEntity);
-                });
-                serializePages(siteEntity, List.of(url));
-                siteRepository.updateStatus(siteEntity.getId(), IndexStatus.INDEXING, null);
-                pageRepository.findBySiteAndPath(siteEntity, path).ifPresent(this::serializeIndex);
-                siteRepository.updateStatus(siteEntity.getId(), IndexStatus.INDEXED, null);
-                result.setResult(true);
-            } else {
-                result.setError(IndexError.PAGE_OUT_OF_CONFIG.toString());
+            synchronized (this) {
+                String url = URI.create(config.getUrl()).toString();
+                Optional<Site> stored = pageStore.getSite(url);
+                siteEntity = stored.orElseGet(() -> pageStore.saveSite(new Site(url, config.getName())));
+                ownLease = (stored.isEmpty() || stored.get().getStatus() == IndexStatus.INDEXING)
+                        && leased.add(siteEntity.getId());
+                if (ownLease && !pageStore.acquireLease(siteEntity, sites.getNodeId(), sites.getLeaseDuration())) {
+                    leased.remove(siteEntity.getId());
+                    pages.keySet().forEach(page -> errors.put(page, IndexError.SITE_LEASED.toString()));
+                    return errors;
+                }
+                if (stored.isEmpty()) {
+                    pageStore.updateStatus(siteEntity, IndexStatus.INDEXED, null);
+                }
             }
         } catch (RuntimeException e) {
-            result.setError(e.getMessage());
+            pages.keySet().forEach(page -> errors.put(page, e.getMessage()));
+            return errors;
         }
-        return result;
+        try {
+            UrlNormalizer normalizer = new UrlNormalizer(config.getUrl(), sites.getQueryParameters());
+            Map<String, Page> changed = new LinkedHashMap<>();
+            Map<String, Page> created = new LinkedHashMap<>();
+            pages.forEach((url, content) -> {
+                try {
+                    PageContent page = content.get();
+                    String path = normalizer.getPath(url);
+                    Page stored = pageStore.getPage(siteEntity, path).orElse(null);
+                    if (stored == null) {
+                        Page pageEntity = new Page(siteEntity, path, page.code(), page.html());
+                        pageEntity.setLastModified(page.lastModified());
+                        created.put(url, pageEntity);
+                    } else if (isOutdated(stored, page) || stored.getCode() == page.code()
+                            && stored.getContent().equals(page.html())) {
+                        errors.put(url, null);
+                    } else {
+                        stored.setCode(page.code());
+                        stored.setContent(page.html());
+                        stored.setLastModified(page.lastModified());
+                        changed.put(url, stored);
+                    }
+                } catch (ExecutionException e) {
+                    errors.put(url, e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    errors.put(url, IndexError.INTERRUPTED.toString());
+                } catch (RuntimeException e) {
+                    errors.put(url, e.getMessage());
+                }
+            });
+            if (!created.isEmpty()) {
+                pageStore.addPages(List.copyOf(created.values()));
+                created.replaceAll((url, pageEntity) -> pageStore.getPage(siteEntity, pageEntity.getPath())
+                        .orElseThrow());
+            }
+            Map<String, ForkJoinTask<TermFrequencies>> analyses = new LinkedHashMap<>();
+            Stream.of(changed, created).forEach(group -> group.forEach((url, pageEntity) ->
+                    analyses.put(url, taskPool.submit(() -> serializeLemmas(pageEntity)))));
+            analyses.forEach((url, task) -> {
+                try {
+                    Page pageEntity = changed.containsKey(url) ? changed.get(url) : created.get(url);
+                    if (changed.containsKey(url)) {
+                        List<Page> aliases = pageStore.getAliases(pageEntity);
+                        pageStore.updatePage(pageEntity);
+                        indexPage(pageEntity, task.join(), true);
+                        aliases.forEach(alias -> indexPage(alias, serializeLemmas(alias), true));
+                    } else {
+                        indexPage(pageEntity, task.join(), false);
+                    }
+                    errors.put(url, null);
+                } catch (RuntimeException e) {
+                    errors.put(url, e.getMessage());
+                }
+            });
+            indexStore.flush(siteEntity);
+        } catch (RuntimeException e) {
+            pages.keySet().forEach(page -> errors.merge(page, e.getMessage(), (error, next) -> error));
+        } finally {
+            if (ownLease) {
+                releaseLease(siteEntity);
+            }
+        }
+        return errors;
     }
 
     private Site serializeSite(String url, String name) {
-            return siteRepository.findByUrl(url).orElseGet(() -> siteRepository.saveAndFlush(new Site(url, name)));
+            return pageStore.getSite(url).orElseGet(() -> pageStore.saveSite(new Site(url, name)));
     }
 
-    private void serializePages(Site siteEntity, List<URI> urlList) {
-        int i = urlList.size() % PAGES_CHUNK, j = (urlList.size() - i) / PAGES_CHUNK;
-        for (int k = 0, start = 0; k <= j; k++, start = k * PAGES_CHUNK) {
+    private Map<String, HtmlExtractor.Content> serializePages(Site siteEntity, List<URI> urlList, Runnable throttle) {
+        FetchLimiter limiter = getLimiter(siteEntity);
+        PageFetcher pageFetcher = new PageFetcher(httpClient, sites);
+        Map<String, HtmlExtractor.Content> contents = new HashMap<>();
+        for (int start = 0; start < urlList.size(); start += PAGES_CHUNK) {
+            List<Future<Map.Entry<Page, HtmlExtractor.Content>>> fetches = urlList
+                    .subList(start, Math.min(start + PAGES_CHUNK, urlList.size())).stream()
+                    .map(url -> fetcher.submit(() -> fetchPage(siteEntity, url, pageFetcher, throttle, limiter)))
+                    .toList();
             try {
-                pageRepository.insertAll(urlList.subList(start, k < j ? (start + PAGES_CHUNK) : (start + i)).stream()
-                        .map(url -> taskPool.submit(() -> {
-                            try {
-                                String path = url.getPath().isEmpty() ? "/" : url.getPath();
-                                WebResponse response = getURLConnection(url);
-                                return new Page(siteEntity,path,response.getStatusCode(),response.getContentAsString());
-                            } catch (RuntimeException e) {
-                                throw new RuntimeException(e.getMessage());
-                            }
-                        })).peek(TASKS::add).map(task -> {
-                            try {
-                                String result = objectMapper.writeValueAsString(task.join());
-                                TASKS.remove(task);
-                                return result;
-                            } catch (CancellationException e) {
-                                throw new CancellationException(IndexError.INTERRUPTED.toString());
-                            } catch (JsonProcessingException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }).collect(Collectors.joining(",", "[", "]")));
-            } catch (CancellationException e) {
+                List<Page> pages = new ArrayList<>(fetches.size());
+                for (Future<Map.Entry<Page, HtmlExtractor.Content>> fetch : fetches) {
+                    Map.Entry<Page, HtmlExtractor.Content> page = fetch.get();
+                    if (page != null) {
+                        pages.add(page.getKey());
+                        contents.put(page.getKey().getPath(), page.getValue());
+                    }
+                }
+                pageStore.addPages(pages);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new CancellationException(IndexError.INTERRUPTED.toString());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof CancellationException ? (CancellationException) e.getCause()
+                        : new RuntimeException(e.getCause().getMessage());
             } catch (RuntimeException e) {
                 throw new RuntimeException(e.getMessage());
+            } finally {
+                fetches.forEach(fetch -> fetch.cancel(true));
+            }
+        }
+        return contents;
+    }
+
+    private Map.Entry<Page, HtmlExtractor.Content> fetchPage(Site siteEntity, URI url, PageFetcher pageFetcher,
+                                                            Runnable throttle, FetchLimiter limiter) {
+        String path = getPath(url);
+        throttle.run();
+        limiter.acquire();
+        long start = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            PageFetcher.Response response = pageFetcher.fetch(url);
+            overloaded = response.code() == 429 || response.code() >= 500;
+            if (!response.isPage()) {
+                return null;
             }
+            HtmlExtractor.Content content = response.content();
+            if (content.base() == null && !response.uri().equals(url)) {
+                // ссылки страницы, перенаправленной с /a на /a/, разрешаются относительно /a/
+                content = new HtmlExtractor.Content(content.text(), content.links(), response.uri().toString());
+            }
+            return Map.entry(new Page(siteEntity, path, response.code(), response.html()), content);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(IndexError.INTERRUPTED.toString());
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded && !Thread.currentThread().isInterrupted());
         }
     }
 
-    private Map<Lemma, Long> serializeLemmas(Page pageEntity) {
+    public Integer getFetchLimit(Site siteEntity) {
+        FetchLimiter limiter = limiters.get(siteEntity.getId());
+        return limiter == null ? null : limiter.getLimit();
+    }
+
+    private FetchLimiter getLimiter(Site siteEntity) {
+        return limiters.computeIfAbsent(siteEntity.getId(), id -> new FetchLimiter(sites.getInitialFetchLimit(),
+                sites.getMaxFetchLimit(), sites.getLatencyTolerance()));
+    }
+
+    private TermFrequencies serializeLemmas(Page pageEntity) {
         try {
-            Site siteEntity = pageEntity.getSite();
-            String text = pageEntity.getContent();
-            Map<String, Long> lemmaMap = splitterEng.orElseThrow().splitTextToLemmas(text);
-            lemmaMap.putAll(splitterRus.orElseThrow().splitTextToLemmas(text));
-            Set<String> lemmas = lemmaMap.keySet();
-            lemmaBuffer.addAll(lemmaRepository.saveAll(lemmas.stream().filter(x -> lemmaBuffer.stream()
-                            .noneMatch(y -> y.getSite().getId() == siteEntity.getId() && y.getLemma().equals(x)))
-                    .map(x -> new Lemma(siteEntity, x)).toList()));
-            List<Lemma> result = lemmaBuffer.stream().filter(x -> lemmas.stream()
-                    .anyMatch(y -> x.getSite().getId() == siteEntity.getId() && x.getLemma().equals(y))).toList();
-            increaseFrequencies(result);
-            return result.stream().map(lemmaEntity -> Map.entry(lemmaEntity, lemmaMap.get(lemmaEntity.getLemma())))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+            return analyzer.analyzeHtml(pageEntity.getContent());
         } catch (CancellationException e) {
             throw new CancellationException(IndexError.INTERRUPTED.toString());
         }
     }
 
-    private void serializeIndex(Page pageEntity) {
+    private TermFrequencies serializeLemmas(PageText text) {
         try {
-            indexRepository.insertAll(Stream.of(taskPool.submit(() -> serializeLemmas(pageEntity))).peek(TASKS::add)
-                    .flatMap(task -> {
-                        try {
-                            Map<Lemma, Long> result = task.join();
-                            TASKS.remove(task);
-                            return result.entrySet().stream()
-                                    .map(mapEntry -> {
-                                        record index(int page_id, int lemma_id, float rank) {}
-                                        return new index(pageEntity.getId(), mapEntry.getKey().getId(),
-                                                Float.valueOf(mapEntry.getValue()));
-                                    });
-                        } catch (CancellationException e) {
-                            throw new CancellationException(IndexError.INTERRUPTED.toString());
-                        }
-                    }).map(indexRecord -> {
-                        try {
-                            return objectMapper.writeValueAsString(indexRecord);
-                        } catch (JsonProcessingException e) {
-                            throw new RuntimeException(e.getMessage());
-                        }
-                    }).collect(Collectors.joining(",", "[", "]")));
+            return analyzer.analyze(text);
+        } catch (CancellationException e) {
+            throw new CancellationException(IndexError.INTERRUPTED.toString());
+        }
+    }
+
+    private void serializeIndex(Page pageEntity, PageText text) {
+        try {
+            Stream.of(taskPool.submit(() -> serializeLemmas(text))).peek(TASKS::add).forEach(task -> {
+                try {
+                    TermFrequencies result = task.join();
+                    TASKS.remove(task);
+                    indexPage(pageEntity, result, false);
+                } catch (CancellationException e) {
+                    throw new CancellationException(IndexError.INTERRUPTED.toString());
+                }
+            });
         } catch (CancellationException e) {
             throw new CancellationException(IndexError.INTERRUPTED.toString());
         } catch (RuntimeException e) {
@@ -244,29 +555,50 @@ public class IndexingServiceImpl implements IndexingService  {
         }
     }
 
-    private void increaseFrequencies(List<Lemma> lemmas) {
-            lemmaRepository.updateFrequencies(lemmas, 1);
+    private boolean isOutdated(Page stored, PageContent page) {
+        return stored.getLastModified() != null && page.lastModified() != null
+                && page.lastModified() < stored.getLastModified();
     }
 
-    private void decreaseFrequencies(List<Lemma> lemmas) {
-        lemmaRepository.updateFrequencies(lemmas, -1);
+    private void indexPage(Page pageEntity, TermFrequencies frequencies, boolean update) {
+        DuplicateIndex index = getDuplicates(pageEntity.getSite());
+        if (update) {
+            index.remove(pageEntity.getId());
+        }
+        long fingerprint = SimHash.fingerprint(frequencies);
+        OptionalInt canonical = frequencies.size() < MIN_FINGERPRINT_LEMMAS ? OptionalInt.empty()
+                : index.register(pageEntity.getId(), fingerprint);
+        pageStore.updateFingerprint(pageEntity, fingerprint, canonical.isPresent() ? canonical.getAsInt() : null);
+        if (update) {
+            indexStore.updatePostings(pageEntity, canonical.isEmpty() ? frequencies : new TermFrequencies());
+        } else if (canonical.isEmpty()) {
+            indexStore.addPostings(pageEntity, frequencies);
+        }
     }
 
-    private WebResponse getURLConnection(URI url) {
-        webClient.getOptions().setCssEnabled(false);
-        webClient.getOptions().setJavaScriptEnabled(false);
-        webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
-        webClient.getOptions().setPrintContentOnFailingStatusCode(false);
-        try {
-            return webClient.getPage(url.toURL() + "/").getWebResponse();
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage());
-        }
+    private DuplicateIndex getDuplicates(Site siteEntity) {
+        return duplicates.computeIfAbsent(siteEntity.getId(), id -> {
+            DuplicateIndex index = new DuplicateIndex(sites.getDuplicateDistance());
+            pageStore.getFingerprints(siteEntity).forEach(page -> index.add(page.pageId(), page.fingerprint()));
+            return index;
+        });
+    }
+
+    private String getPath(URI url) {
+        String path = url.getRawPath() == null || url.getRawPath().isEmpty() ? "/" : url.getRawPath();
+        return url.getRawQuery() == null ? path : path + "?" + url.getRawQuery();
     }
 
-    private Map<String, String> getConfigSite(String site_regex) {
-        return sites.getSites().stream()
-                .filter(config -> config.getUrl().matches(site_regex))
-                .collect(Collectors.toMap(SiteList.SiteRecord::getUrl, SiteList.SiteRecord::getName));
+    private Optional<Map.Entry<SiteList.SiteRecord, String>> resolveLink(String link) {
+        if (!URI.create(link.strip()).isAbsolute()) {
+            return Optional.empty();
+        }
+        for (SiteList.SiteRecord config : sites.getSites()) {
+            String canonical = new UrlNormalizer(config.getUrl(), sites.getQueryParameters()).normalize(link);
+            if (canonical != null) {
+                return Optional.of(Map.entry(config, canonical));
+            }
+        }
+        return Optional.empty();
     }
 }
@@ -2,6 +2,9 @@ package searchengine.services;
 
 import searchengine.dto.searching.SearchResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface SearchService {
-    SearchResponse startSearch(String query, String site, Integer offset, Integer limit);
+    CompletableFuture<SearchResponse> startSearch(String query, String site, Integer offset, Integer limit, String cursor,
+                               boolean explain, boolean debug);
 }
@@ -1,78 +1,485 @@
 package searchengine.services;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import searchengine.config.SearchSettings;
+import searchengine.dto.searching.QueryPlan;
+import searchengine.dto.searching.QueryPlanStep;
 import searchengine.dto.searching.SearchResponse;
 import searchengine.dto.searching.SearchResult;
-import searchengine.model.Index;
-import searchengine.model.Lemma;
 import searchengine.model.Page;
 import searchengine.model.Site;
-import searchengine.repositories.LemmaRepository;
-import searchengine.repositories.SiteRepository;
-import searchengine.repositories.PageRepository;
-import searchengine.repositories.IndexRepository;
-
-import searchengine.utils.SplitToLemmas;
+import searchengine.storage.IndexStore;
+import searchengine.storage.PageStore;
+import searchengine.storage.Posting;
+import searchengine.utils.LemmaAnalyzer;
+import searchengine.utils.LemmaTrie;
+import searchengine.utils.Phrase;
+import searchengine.utils.Positions;
+import searchengine.utils.QueryTrace;
+import searchengine.utils.RankedResults;
+import searchengine.utils.SearchCursor;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchServiceImpl implements SearchService {
     @Autowired
-    private final LemmaRepository lemmaRepository;
+    private final PageStore pageStore;
 
     @Autowired
-    private final SiteRepository siteRepository;
+    private final IndexStore indexStore;
 
     @Autowired
-    private final PageRepository pageRepository;
+    private final LemmaAnalyzer analyzer;
 
     @Autowired
-    private final IndexRepository indexRepository;
+    private final SearchSettings settings;
+
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]*)\"");
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private record Vocabulary(CompletableFuture<LemmaTrie> trie, long created) {}
+
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore heavyQueries;
+    private final Map<Integer, Vocabulary> vocabularies = new ConcurrentHashMap<>();
 
-    private final Optional<SplitToLemmas> splitterRus = Optional.ofNullable(SplitToLemmas.getInstanceRus());
-    private final Optional<SplitToLemmas> splitterEng = Optional.ofNullable(SplitToLemmas.getInstanceEng());
+    private final Map<String, RankedResults> resultCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RankedResults> eldest) {
+                    return size() > settings.getResultCacheSize();
+                }
+            });
 
-    private Map<String, List<Lemma>> lemmas;
+    @PostConstruct
+    private void init() {
+        heavyQueries = new Semaphore(settings.getMaxHeavyQueries());
+    }
 
-    private final double MENTION_COEFFICIENT = 0.7;
+    @PreDestroy
+    private void close() {
+        searchExecutor.shutdownNow();
+    }
 
-    public SearchResponse startSearch(String query, String site, Integer offset, Integer limit) {
+    public CompletableFuture<SearchResponse> startSearch(String query, String site, Integer offset, Integer limit,
+                                                         String cursor, boolean explain, boolean debug) {
+        long deadline = System.currentTimeMillis() + settings.getTimeout();
+        boolean tracing = debug || settings.getSlowQueryThreshold() > 0;
+        CompletableFuture<SearchResponse> result = new CompletableFuture<>();
+        Future<?> task = searchExecutor.submit(() -> {
+            try (QueryTrace trace = tracing ? QueryTrace.begin() : null) {
+                SearchResponse response = search(query, site, offset, limit, cursor, explain, deadline);
+                if (trace != null) {
+                    response.setTrace(debug ? trace.toSearchTrace() : null);
+                    logSlowQuery(trace, query, site, cursor);
+                }
+                result.complete(response);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        CompletableFuture.delayedExecutor(settings.getAbortTimeout(), TimeUnit.MILLISECONDS).execute(() ->
+                result.completeExceptionally(new TimeoutException("Превышено время выполнения поискового запроса")));
+        result.whenComplete((response, error) -> task.cancel(true));
+        return result;
+    }
+
+    private SearchResponse search(String query, String site, int offset, int limit, String cursor, boolean explain,
+                                  long deadline) {
         SearchResponse response = new SearchResponse();
-        if (query.isEmpty()) {
-            response.setResult(false);
-            response.setError("Задан пустой поисковый запрос");
+        if (cursor != null) {
+            SearchCursor position;
+            try {
+                position = SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return errorResponse("Некорректный курсор поисковой выдачи");
+            }
+            List<Site> siteList = getSiteList(position.site());
+            long mark = QueryTrace.mark();
+            QueryPlan plan = new QueryPlan();
+            plan.setSteps(position.lemmas().stream().map(lemma -> {
+                QueryPlanStep step = createStep(lemma, siteList);
+                step.setAction(QueryPlanStep.Action.INTERSECT);
+                return step;
+            }).toList());
+            QueryTrace.phase("plan", mark, plan.getSteps().size());
+            RankedResults results = getRankedResults(position.site(), plan, position.phrases(), deadline);
+            Set<String> lemmaSet = new HashSet<>(position.lemmas());
+            lemmaSet.addAll(position.otherLemmas());
+            setResults(response, position.site(), plan, position.phrases(), results, lemmaSet,
+                    results.positionAfter(position.rank(), position.pageId()), limit);
+            response.setPlan(explain ? plan : null);
+        } else if (query == null || query.isEmpty()) {
+            return errorResponse("Задан пустой поисковый запрос");
         } else {
-            response.setResult(true);
-            List<Site> siteList = site == null
-                    ? siteRepository.findAll() : List.of(siteRepository.findByUrl(site).orElseThrow());
-            List<String> lemmaList = getLemmasFromQuery(query, siteList);
-            if (Optional.ofNullable(lemmas).isEmpty() || lemmas.isEmpty() || lemmaList.isEmpty()) {
-                response.setCount(0);
-                response.setData(List.of());
+            long mark = QueryTrace.mark();
+            Set<String> lemmaSet = new HashSet<>(analyzer.analyze(query).terms());
+            lemmaSet.addAll(analyzer.getUnknownWords(query));
+            List<Phrase> phrases = parsePhrases(query);
+            QueryTrace.phase("analyze", mark, lemmaSet.size());
+            QueryPlan plan = planQuery(lemmaSet, getSiteList(site));
+            plan.getSteps().stream().map(QueryPlanStep::getExpansions).filter(Objects::nonNull)
+                    .forEach(lemmaSet::addAll);
+            RankedResults results = getRankedResults(site, plan, phrases, deadline);
+            setResults(response, site, plan, phrases, results, lemmaSet, offset, limit);
+            response.setPlan(explain ? plan : null);
+        }
+        return response;
+    }
+
+    private void logSlowQuery(QueryTrace trace, String query, String site, String cursor) {
+        double millis = trace.getMillis();
+        if (settings.getSlowQueryThreshold() > 0 && millis >= settings.getSlowQueryThreshold()) {
+            log.warn("Медленный поисковый запрос, {} мс: query={}, site={}, cursor={}; этапы: {}; SQL: {}", millis,
+                    query, site, cursor, trace.describe(), trace.getStatements());
+        }
+    }
+
+    private SearchResponse errorResponse(String error) {
+        SearchResponse response = new SearchResponse();
+        response.setResult(false);
+        response.setError(error);
+        return response;
+    }
+
+    private void setResults(SearchResponse response, String site, QueryPlan plan, List<Phrase> phrases,
+                            RankedResults results, Set<String> lemmaSet, int from, int limit) {
+        int to = (int) Math.min(results.size(), (long) from + Math.max(limit, 0));
+        response.setResult(true);
+        response.setCount(results.size());
+        response.setData(from < to ? getResultsFromPages(results, from, to, lemmaSet) : List.of());
+        response.setPartial(Boolean.TRUE.equals(plan.getPartial()));
+        if (from < to && to < results.size() && !response.getPartial()) {
+            List<String> lemmas = getIntersected(plan);
+            List<String> otherLemmas = lemmaSet.stream().filter(Predicate.not(lemmas::contains)).sorted().toList();
+            response.setCursor(new SearchCursor(site, lemmas, otherLemmas, phrases, results.rank(to - 1),
+                    results.pageId(to - 1)).encode());
+        }
+    }
+
+    private List<Phrase> parsePhrases(String query) {
+        Map<String, Phrase> phrases = new LinkedHashMap<>();
+        Matcher matcher = PHRASE.matcher(query);
+        while (matcher.find()) {
+            Phrase phrase = Phrase.of(analyzer.analyze(matcher.group(1)));
+            if (phrase != null) {
+                phrases.putIfAbsent(phrase.encode(), phrase);
+            }
+        }
+        return List.copyOf(phrases.values());
+    }
+
+    private RankedResults getRankedResults(String site, QueryPlan plan, List<Phrase> phrases, long deadline) {
+        List<String> phraseList = phrases.stream().map(Phrase::encode).toList();
+        plan.setPhrases(phraseList);
+        String expansions = plan.getSteps().stream().filter(step -> step.getExpansions() != null)
+                .sorted(Comparator.comparing(QueryPlanStep::getLemma))
+                .map(step -> step.getLemma() + "=" + String.join(",", step.getExpansions()))
+                .collect(Collectors.joining(" "));
+        String key = (site == null ? "" : site) + "\n" + String.join(" ", getIntersected(plan)) + "\n"
+                + String.join(" ", phraseList) + "\n" + expansions;
+        RankedResults results = resultCache.get(key);
+        if (results != null && System.currentTimeMillis() - results.getCreated() <= settings.getResultTtl()) {
+            plan.setCached(true);
+            return results;
+        }
+        List<Site> siteList = getSiteList(site);
+        boolean heavy = plan.getSteps().stream().filter(step -> step.getAction() == QueryPlanStep.Action.INTERSECT)
+                .mapToLong(QueryPlanStep::getFrequency).sum() > settings.getHeavyPostings();
+        if (heavy && !heavyQueries.tryAcquire()) {
+            throw new RejectedExecutionException("Слишком много одновременных тяжёлых запросов, повторите запрос позже");
+        }
+        try {
+            plan.setPartial(false);
+            Map<Integer, Float> rankMap = executePlan(plan, siteList, deadline);
+            if (!phrases.isEmpty()) {
+                if (expired(plan, deadline)) {
+                    rankMap = getBest(rankMap, settings.getPartialDepth());
+                }
+                rankMap = filterPhrases(plan, phrases, rankMap, siteList);
+                plan.setPhraseMatches(rankMap.size());
+            }
+            results = rerankByProximity(plan, rankMap, siteList, deadline);
+        } finally {
+            if (heavy) {
+                heavyQueries.release();
+            }
+        }
+        if (!plan.getPartial()) {
+            resultCache.put(key, results);
+        }
+        plan.setCached(false);
+        return results;
+    }
+
+    private Map<Integer, Float> getBest(Map<Integer, Float> rankMap, int depth) {
+        if (rankMap.size() <= depth) {
+            return rankMap;
+        }
+        RankedResults results = RankedResults.of(rankMap);
+        Map<Integer, Float> best = new HashMap<>(depth * 2);
+        for (int position = 0; position < depth; position++) {
+            best.put(results.pageId(position), results.rank(position));
+        }
+        return best;
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    private boolean expired(QueryPlan plan, long deadline) {
+        if (System.currentTimeMillis() > deadline) {
+            plan.setPartial(true);
+        }
+        return plan.getPartial();
+    }
+
+    private Map<Integer, Float> filterPhrases(QueryPlan plan, List<Phrase> phrases, Map<Integer, Float> rankMap,
+                                              List<Site> siteList) {
+        Map<Integer, Float> result = new HashMap<>(rankMap);
+        Map<String, QueryPlanStep> steps = new HashMap<>();
+        plan.getSteps().forEach(step -> steps.put(step.getLemma(), step));
+        for (Phrase phrase : phrases) {
+            Map<String, Map<Integer, int[]>> positions = new HashMap<>();
+            for (String lemma : phrase.lemmas()) {
+                checkInterrupted();
+                if (!result.isEmpty() && !positions.containsKey(lemma)) {
+                    long mark = QueryTrace.mark();
+                    QueryPlanStep step = steps.computeIfAbsent(lemma, missing -> createStep(missing, siteList));
+                    Map<Integer, int[]> lemmaPositions = getPositions(siteList, step, result.keySet());
+                    QueryTrace.phase("phrase:" + lemma, mark, lemmaPositions.size());
+                    result.keySet().retainAll(lemmaPositions.keySet());
+                    positions.put(lemma, lemmaPositions);
+                }
+            }
+            result.keySet().removeIf(pageId -> !Positions.containsPhrase(phrase.lemmas().stream()
+                    .map(lemma -> positions.get(lemma).get(pageId)).toArray(int[][]::new), phrase.offsets()));
+        }
+        return result;
+    }
+
+    private RankedResults rerankByProximity(QueryPlan plan, Map<Integer, Float> rankMap, List<Site> siteList,
+                                            long deadline) {
+        RankedResults results = RankedResults.of(rankMap);
+        List<QueryPlanStep> steps = plan.getSteps().stream()
+                .filter(step -> step.getAction() == QueryPlanStep.Action.INTERSECT).toList();
+        int depth = Math.min(results.size(), settings.getProximityDepth());
+        if (steps.size() < 2 || depth == 0 || settings.getProximityWeight() <= 0 || expired(plan, deadline)) {
+            return results;
+        }
+        Set<Integer> pageIds = new HashSet<>(depth * 2);
+        for (int position = 0; position < depth; position++) {
+            pageIds.add(results.pageId(position));
+        }
+        long mark = QueryTrace.mark();
+        List<Map<Integer, int[]>> positions = steps.stream()
+                .map(step -> getPositions(siteList, step, pageIds)).toList();
+        QueryTrace.phase("proximity", mark, positions.stream().mapToInt(Map::size).sum());
+        Map<Integer, Float> boosted = new HashMap<>(rankMap);
+        for (Integer pageId : pageIds) {
+            int span = Positions.minimalSpan(positions.stream()
+                    .map(lemmaPositions -> lemmaPositions.getOrDefault(pageId, NO_POSITIONS)).toArray(int[][]::new));
+            if (span != Integer.MAX_VALUE) {
+                double boost = 1 + settings.getProximityWeight() * (steps.size() - 1) / Math.max(span - 1, 1);
+                boosted.computeIfPresent(pageId, (id, rank) -> (float) (rank * boost));
+            }
+        }
+        plan.setProximityReranked(depth);
+        return RankedResults.of(boosted);
+    }
+
+    private Map<Integer, int[]> getPositions(List<Site> siteList, QueryPlanStep step, Set<Integer> pageIds) {
+        checkInterrupted();
+        if (step.getExpansions() == null) {
+            return indexStore.getPositions(siteList, step.getLemma(), pageIds);
+        }
+        Map<Integer, int[]> result = new HashMap<>();
+        for (String expansion : step.getExpansions()) {
+            indexStore.getPositions(siteList, expansion, pageIds).forEach((pageId, positions) -> result.merge(pageId,
+                    positions, (a, b) -> IntStream.concat(Arrays.stream(a), Arrays.stream(b)).sorted().toArray()));
+        }
+        return result;
+    }
+
+    private List<String> getIntersected(QueryPlan plan) {
+        return plan.getSteps().stream().filter(step -> step.getAction() == QueryPlanStep.Action.INTERSECT)
+                .map(QueryPlanStep::getLemma).toList();
+    }
+
+    private List<Site> getSiteList(String site) {
+        long mark = QueryTrace.mark();
+        List<Site> siteList = site == null ? pageStore.getSites() : List.of(pageStore.getSite(site).orElseThrow());
+        QueryTrace.phase("sites", mark, siteList.size());
+        return siteList;
+    }
+
+    private QueryPlan planQuery(Set<String> lemmaSet, List<Site> siteList) {
+        long mark = QueryTrace.mark();
+        QueryPlan plan = new QueryPlan();
+        int pageTotal = pageStore.countPages(siteList);
+        double maxFrequency = settings.getMaxFrequencyRatio() * pageTotal;
+        List<QueryPlanStep> steps = lemmaSet.stream()
+                .map(lemma -> createStep(lemma, siteList))
+                .sorted(Comparator.comparing(QueryPlanStep::getFrequency).thenComparing(QueryPlanStep::getLemma))
+                .toList();
+        boolean hasSelective = steps.stream()
+                .anyMatch(step -> step.getFrequency() > 0 && step.getFrequency() <= maxFrequency);
+        boolean first = true;
+        for (QueryPlanStep step : steps) {
+            if (step.getFrequency() == 0) {
+                step.setAction(QueryPlanStep.Action.MISSING);
+            } else if (step.getFrequency() > maxFrequency && (hasSelective || !first)) {
+                step.setAction(QueryPlanStep.Action.PRUNED);
             } else {
-                List<Page> pageList = getPagesFromLemmas(lemmaList, indexRepository
-                        .getPagesFromIndexIn(indexRepository.findByLemmaIn(lemmas.get(lemmaList.get(0)))));
-                List<SearchResult> resultList = getResultsFromPages(pageList, offset, limit);
-                response.setCount(pageList.size());
-                response.setData(resultList);
+                step.setAction(QueryPlanStep.Action.INTERSECT);
+                first = false;
             }
         }
-        return response;
+        plan.setPageTotal(pageTotal);
+        plan.setMaxFrequencyRatio(settings.getMaxFrequencyRatio());
+        plan.setSteps(steps);
+        plan.setShortCircuit(false);
+        QueryTrace.phase("plan", mark, steps.size());
+        return plan;
     }
 
-    private List<Page> getPagesFromLemmas(List<String> lemmaList, List<Page> pageList) {
-        return lemmaList.isEmpty() ? pageList : getPagesFromLemmas(lemmaList.subList(1, lemmaList.size()),
-                indexRepository.getPagesFromIndexIn(indexRepository.findByPageInAndLemmaIn(pageList,
-                lemmas.get(lemmaList.get(0)))));
+    private QueryPlanStep createStep(String lemma, List<Site> siteList) {
+        QueryPlanStep step = new QueryPlanStep(lemma, indexStore.getFrequency(siteList, lemma));
+        if (step.getFrequency() == 0) {
+            Map<String, Integer> expansions = expand(lemma, siteList);
+            if (!expansions.isEmpty()) {
+                step.setExpansions(List.copyOf(expansions.keySet()));
+                step.setFrequency(expansions.values().stream().mapToInt(Integer::intValue).sum());
+            }
+        }
+        return step;
+    }
+
+    private Map<String, Integer> expand(String lemma, List<Site> siteList) {
+        int maxEdits = Math.min(settings.getMaxEdits(), lemma.length() < 3 ? 0 : lemma.length() < 6 ? 1 : 2);
+        boolean prefix = lemma.length() >= settings.getMinPrefixLength();
+        if (settings.getMaxExpansions() <= 0 || maxEdits == 0 && !prefix) {
+            return Map.of();
+        }
+        long mark = QueryTrace.mark();
+        Map<String, LemmaTrie.Match> matches = new HashMap<>();
+        for (Site siteEntity : siteList) {
+            for (LemmaTrie.Match match : getTrie(siteEntity).search(lemma, maxEdits, prefix)) {
+                matches.merge(match.lemma(), match, (a, b) -> new LemmaTrie.Match(a.lemma(),
+                        a.frequency() + b.frequency(), Math.min(a.distance(), b.distance())));
+            }
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        long total = 0;
+        for (LemmaTrie.Match match : matches.values().stream().sorted(Comparator.comparingInt(LemmaTrie.Match::distance)
+                .thenComparing(Comparator.comparingInt(LemmaTrie.Match::frequency).reversed())
+                .thenComparing(LemmaTrie.Match::lemma)).toList()) {
+            if (result.size() == settings.getMaxExpansions()) {
+                break;
+            }
+            if (total + match.frequency() <= settings.getMaxExpansionFrequency()) {
+                result.put(match.lemma(), match.frequency());
+                total += match.frequency();
+            }
+        }
+        QueryTrace.phase("expand:" + lemma, mark, result.size());
+        return result;
+    }
+
+    private LemmaTrie getTrie(Site siteEntity) {
+        long now = System.currentTimeMillis();
+        Vocabulary vocabulary = vocabularies.get(siteEntity.getId());
+        if (vocabulary == null || now - vocabulary.created() > settings.getVocabularyTtl()) {
+            Vocabulary next = new Vocabulary(new CompletableFuture<>(), now);
+            boolean claimed = vocabulary == null ? vocabularies.putIfAbsent(siteEntity.getId(), next) == null
+                    : vocabularies.replace(siteEntity.getId(), vocabulary, next);
+            if (!claimed) {
+                return getTrie(siteEntity);
+            }
+            try {
+                next.trie().complete(LemmaTrie.of(indexStore.getVocabulary(siteEntity)));
+            } catch (RuntimeException e) {
+                vocabularies.remove(siteEntity.getId(), next);
+                next.trie().completeExceptionally(e);
+                throw e;
+            }
+            vocabulary = next;
+        }
+        return vocabulary.trie().join();
+    }
+
+    private List<Posting> getPostings(List<Site> siteList, QueryPlanStep step) {
+        checkInterrupted();
+        if (step.getExpansions() == null) {
+            return indexStore.getPostings(siteList, step.getLemma());
+        }
+        Map<Integer, Float> ranks = new HashMap<>();
+        for (String expansion : step.getExpansions()) {
+            indexStore.getPostings(siteList, expansion)
+                    .forEach(posting -> ranks.merge(posting.pageId(), posting.rank(), Math::max));
+        }
+        return ranks.entrySet().stream().map(entry -> new Posting(entry.getKey(), entry.getValue())).toList();
+    }
+
+    private Map<Integer, Float> executePlan(QueryPlan plan, List<Site> siteList, long deadline) {
+        Map<Integer, Float> rankMap = null;
+        for (QueryPlanStep step : plan.getSteps()) {
+            if (step.getAction() != QueryPlanStep.Action.INTERSECT) {
+                continue;
+            }
+            if (rankMap != null && rankMap.isEmpty()) {
+                plan.setShortCircuit(true);
+                break;
+            }
+            if (rankMap != null && expired(plan, deadline)) {
+                long mark = QueryTrace.mark();
+                rankMap = new HashMap<>(getBest(rankMap, settings.getPartialDepth()));
+                rankMap.keySet().retainAll(getPositions(siteList, step, rankMap.keySet()).keySet());
+                step.setAction(QueryPlanStep.Action.VERIFIED);
+                step.setCandidates(rankMap.size());
+                QueryTrace.phase("verify:" + step.getLemma(), mark, rankMap.size());
+                continue;
+            }
+            long mark = QueryTrace.mark();
+            List<Posting> postings = getPostings(siteList, step);
+            if (rankMap == null) {
+                rankMap = new HashMap<>(postings.size() * 2);
+                for (Posting posting : postings) {
+                    rankMap.merge(posting.pageId(), posting.rank(), Float::sum);
+                }
+            } else {
+                Map<Integer, Float> candidates = new HashMap<>(Math.min(rankMap.size(), postings.size()) * 2);
+                for (Posting posting : postings) {
+                    Float rank = rankMap.get(posting.pageId());
+                    if (rank != null) {
+                        candidates.merge(posting.pageId(), rank + posting.rank(), Float::sum);
+                    }
+                }
+                rankMap = candidates;
+            }
+            step.setCandidates(rankMap.size());
+            QueryTrace.phase("postings:" + step.getLemma(), mark, postings.size());
+        }
+        return rankMap == null ? Map.of() : rankMap;
     }
 
     private String getSnippetFromContent(String htmlCode, Set<String> lemmaSet) {
@@ -85,7 +492,7 @@ public class SearchServiceImpl implements SearchService {
                             .filter(Predicate.not(String::isEmpty))
                             .filter(word -> word.matches("[а-яА-Яa-zA-Z]{2,}"))
                             .filter(word -> lemmaSet.stream().anyMatch(lemma ->
-                                    getNormalForms(word).anyMatch(lemma::equals))).toList();
+                                    analyzer.getNormalForms(word).contains(lemma))).toList();
 
                     String bolded = string;
                     for (String word : boldList) {
@@ -96,36 +503,21 @@ public class SearchServiceImpl implements SearchService {
                 .limit(3).map(Map.Entry::getValue).collect(Collectors.joining("<br />"));
     }
 
-    private List<String> getLemmasFromQuery(String query, List<Site> siteList) {
-        Map<String, Long> lemmaMap = splitToLemmas(query);
-        lemmas = lemmaMap.keySet().stream()
-                .map(lemma -> Map.entry(lemma, lemmaRepository.findBySiteInAndLemma(siteList, lemma)))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        int pageTotal = pageRepository.countAllBySiteIn(siteList);
-        return lemmaMap.keySet().stream()
-                .map(lemma -> Map.entry(lemma, lemmas.get(lemma).stream()
-                        .mapToInt(x -> x == null ? 0 : x.getFrequency()).sum()))
-                .filter(entry -> entry.getValue() > 0)
-                .sorted(Map.Entry.comparingByValue())
-                .filter(entry -> {
-                    return pageTotal > 0; // && (double) (entry.getValue() / pageTotal) > MENTION_COEFFICIENT;
-                }).map(Map.Entry::getKey)
-                .toList();
-    }
-
-    private List<SearchResult> getResultsFromPages(List<Page> pageList, int offset, int limit) {
-        Map<Page, Double> rankMap = pageList.stream().map(pageEntity -> Map.entry(pageEntity,
-                                        indexRepository.findByPageInAndLemmaIn(List.of(pageEntity),
-                                                        lemmas.values().stream().flatMap(Collection::stream).toList())
-                                                .stream().mapToDouble(Index::getRank).sum()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-        double maxRank = rankMap.entrySet().stream().max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getValue).orElse(0.0);
+    private List<SearchResult> getResultsFromPages(RankedResults results, int from, int to, Set<String> lemmaSet) {
+        double maxRank = results.getMaxRank();
+        Map<Integer, Float> rankMap = new LinkedHashMap<>();
+        for (int position = from; position < to; position++) {
+            rankMap.put(results.pageId(position), results.rank(position));
+        }
+        List<Integer> pageIds = List.copyOf(rankMap.keySet());
+        long mark = QueryTrace.mark();
+        Map<Integer, Page> pageMap = pageStore.getPages(pageIds).stream()
+                .collect(Collectors.toMap(Page::getId, pageEntity -> pageEntity));
+        QueryTrace.phase("pages", mark, pageMap.size());
 
-        return pageList.stream().sorted(Comparator
-                        .comparingDouble(pageEntity -> maxRank > 0.0 ? rankMap.get(pageEntity) / maxRank : 0.0)
-                        .reversed()).skip(offset).limit(Math.min(limit, pageList.size() - offset)).map(pageEntity -> {
+        long snippetsMark = QueryTrace.mark();
+        List<SearchResult> searchResults = pageIds.stream().map(pageMap::get).filter(Objects::nonNull)
+                .map(pageEntity -> {
                     SearchResult result = new SearchResult();
                     Site siteEntity = pageEntity.getSite();
                     String htmlCode = pageEntity.getContent();
@@ -134,31 +526,11 @@ public class SearchServiceImpl implements SearchService {
                     result.setSiteName(siteEntity.getName());
                     result.setUri(pageEntity.getPath());
                     result.setTitle(Jsoup.parse(htmlCode).getElementsByTag("title").text());
-                    result.setSnippet(getSnippetFromContent(htmlCode, lemmas.keySet()));
-                    result.setRelevance(maxRank > 0.0 ? rankMap.get(pageEntity) / maxRank : 0.0);
+                    result.setSnippet(getSnippetFromContent(htmlCode, lemmaSet));
+                    result.setRelevance(maxRank > 0.0 ? rankMap.get(pageEntity.getId()) / maxRank : 0.0);
                     return result;
                 }).toList();
-    }
-
-    private Stream<String> getNormalForms(String word) {
-        try {
-            return splitterEng.map(x -> x.getNormalForms(word.toLowerCase()).stream()).orElseThrow();
-        } catch (RuntimeException eng) {
-            try {
-                return splitterRus.map(x -> x.getNormalForms(word.toLowerCase()).stream()).orElseThrow();
-            } catch (RuntimeException rus) {
-                return Stream.of();
-            }
-        }
-    }
-
-    private Map<String, Long> splitToLemmas(String text) {
-        try {
-            return Stream.concat(splitterEng.map(x -> x.splitTextToLemmas(text).entrySet().stream()).orElseThrow(),
-                            splitterRus.map(x -> x.splitTextToLemmas(text).entrySet().stream()).orElseThrow())
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        } catch (RuntimeException e) {
-            return Map.of();
-        }
+        QueryTrace.phase("snippets", snippetsMark, searchResults.size());
+        return searchResults;
     }
 }
@@ -8,9 +8,8 @@ import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.statistics.TotalStatistics;
 import searchengine.model.IndexStatus;
-import searchengine.repositories.LemmaRepository;
-import searchengine.repositories.PageRepository;
-import searchengine.repositories.SiteRepository;
+import searchengine.storage.IndexStore;
+import searchengine.storage.PageStore;
 
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -20,27 +19,28 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StatisticsServiceImpl implements StatisticsService {
     @Autowired
-    private final SiteRepository siteRepository;
+    private final PageStore pageStore;
 
     @Autowired
-    private final PageRepository pageRepository;
+    private final IndexStore indexStore;
 
     @Autowired
-    private final LemmaRepository lemmaRepository;
+    private final IndexingService indexingService;
 
     @Override
     public StatisticsResponse getStatistics() {
         TotalStatistics total = new TotalStatistics();
-        total.setSites((int) siteRepository.count());
-        total.setIndexing(siteRepository.existsByStatusIs(IndexStatus.INDEXING));
+        total.setSites(pageStore.countSites());
+        total.setIndexing(pageStore.existsByStatus(IndexStatus.INDEXING));
 
         List<DetailedStatisticsItem> detailed = new ArrayList<>();
-        siteRepository.findAll().forEach(siteEntity -> {
+        pageStore.getSites().forEach(siteEntity -> {
             DetailedStatisticsItem item = new DetailedStatisticsItem();
             item.setName(siteEntity.getName());
             item.setUrl(siteEntity.getUrl());
-            item.setPages(pageRepository.countAllBySite(siteEntity));
-            item.setLemmas(lemmaRepository.countAllBySite(siteEntity));
+            item.setPages(pageStore.countPages(List.of(siteEntity)));
+            item.setLemmas(indexStore.countLemmas(siteEntity));
+            item.setFetchLimit(indexingService.getFetchLimit(siteEntity));
             item.setStatus(siteEntity.getStatus().toString());
             item.setError(siteEntity.getLastError());
             item.setStatusTime(siteEntity.getStatusTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record FrontierItem(String path, int depth, double priority, boolean done) {}
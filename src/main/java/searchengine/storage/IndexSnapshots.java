@@ -0,0 +1,109 @@
+package searchengine.storage;
+
+import searchengine.storage.segment.Segment;
+import searchengine.storage.segment.SegmentWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+class IndexSnapshots {
+    private record Snapshot(Segment segment, long indexVersion) {}
+
+    private static final String EXTENSION = ".snap";
+    private static final String VERSION = ".version";
+
+    private Path directory;
+    private final Map<Integer, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    List<Integer> open(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Integer> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(EXTENSION)) {
+                    result.add(Integer.parseInt(name.substring(0, name.length() - EXTENSION.length())));
+                }
+            }
+        }
+        return result;
+    }
+
+    void load(int siteId, Long indexVersion) throws IOException {
+        Path versionFile = versionFile(siteId);
+        if (indexVersion != null && Files.exists(versionFile)
+                && Files.readString(versionFile).equals(String.valueOf(indexVersion))) {
+            snapshots.put(siteId, new Snapshot(Segment.open(file(siteId)), indexVersion));
+        } else {
+            delete(siteId);
+        }
+    }
+
+    Segment get(int siteId) {
+        Snapshot snapshot = snapshots.get(siteId);
+        return snapshot == null ? null : snapshot.segment();
+    }
+
+    boolean matches(int siteId, long indexVersion) {
+        Snapshot snapshot = snapshots.get(siteId);
+        return snapshot != null && snapshot.indexVersion() == indexVersion;
+    }
+
+    long generation(int siteId) {
+        return generations.computeIfAbsent(siteId, id -> new AtomicLong()).get();
+    }
+
+    synchronized void invalidate(int siteId) {
+        generations.computeIfAbsent(siteId, id -> new AtomicLong()).incrementAndGet();
+        if (snapshots.remove(siteId) != null) {
+            delete(siteId);
+        }
+    }
+
+    SegmentWriter writer(int siteId) throws IOException {
+        return new SegmentWriter(file(siteId));
+    }
+
+    void install(int siteId, long generation, long indexVersion) throws IOException {
+        Path versionFile = versionFile(siteId);
+        Path temp = versionFile.resolveSibling(versionFile.getFileName() + ".tmp");
+        Files.writeString(temp, String.valueOf(indexVersion));
+        Files.move(temp, versionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            if (generation(siteId) == generation) {
+                snapshots.put(siteId, new Snapshot(Segment.open(file(siteId)), indexVersion));
+                return;
+            }
+        }
+        delete(siteId);
+    }
+
+    private void delete(int siteId) {
+        try {
+            Files.deleteIfExists(versionFile(siteId));
+            Files.deleteIfExists(file(siteId));
+        } catch (IOException ignored) {
+            // без файла версии снимок не будет подключён при следующем запуске
+        }
+    }
+
+    private Path file(int siteId) {
+        return directory.resolve(siteId + EXTENSION);
+    }
+
+    private Path versionFile(int siteId) {
+        return directory.resolve(siteId + VERSION);
+    }
+}
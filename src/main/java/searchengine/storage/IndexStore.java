@@ -0,0 +1,34 @@
+package searchengine.storage;
+
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.utils.TermFrequencies;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface IndexStore {
+    void addPostings(Page page, TermFrequencies frequencies);
+
+    void removePostings(Page page);
+
+    default void updatePostings(Page page, TermFrequencies frequencies) {
+        removePostings(page);
+        addPostings(page, frequencies);
+    }
+
+    void removeSite(Site site);
+
+    List<Posting> getPostings(List<Site> siteList, String lemma);
+
+    Map<Integer, int[]> getPositions(List<Site> siteList, String lemma, Collection<Integer> pageIds);
+
+    int getFrequency(List<Site> siteList, String lemma);
+
+    TermFrequencies getVocabulary(Site site);
+
+    int countLemmas(Site site);
+
+    default void flush(Site site) {}
+}
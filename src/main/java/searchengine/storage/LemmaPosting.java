@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record LemmaPosting(int lemmaId, int pageId, float rank, byte[] positions) {}
@@ -0,0 +1,96 @@
+package searchengine.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.utils.TermFrequencies;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(prefix = "storage-settings", name = "type", havingValue = "memory")
+public class MemoryIndexStore implements IndexStore {
+    private record SiteIndex(Map<String, Map<Integer, Float>> postings, Map<Integer, TermFrequencies> pages) {}
+
+    private final Map<Integer, SiteIndex> indices = new ConcurrentHashMap<>();
+
+    @Override
+    public void addPostings(Page pageEntity, TermFrequencies frequencies) {
+        SiteIndex index = getIndex(pageEntity.getSite());
+        int pageId = pageEntity.getId();
+        index.pages().put(pageId, frequencies);
+        frequencies.forEach((lemma, count) ->
+                index.postings().computeIfAbsent(lemma, x -> new ConcurrentHashMap<>()).put(pageId, (float) count));
+    }
+
+    @Override
+    public void removePostings(Page pageEntity) {
+        SiteIndex index = getIndex(pageEntity.getSite());
+        int pageId = pageEntity.getId();
+        TermFrequencies frequencies = index.pages().remove(pageId);
+        if (frequencies != null) {
+            frequencies.forEach((lemma, count) -> index.postings().computeIfPresent(lemma, (key, pageMap) -> {
+                pageMap.remove(pageId);
+                return pageMap.isEmpty() ? null : pageMap;
+            }));
+        }
+    }
+
+    @Override
+    public void removeSite(Site siteEntity) {
+        indices.remove(siteEntity.getId());
+    }
+
+    @Override
+    public List<Posting> getPostings(List<Site> siteList, String lemma) {
+        return siteList.stream().map(siteEntity -> getIndex(siteEntity).postings().get(lemma))
+                .filter(Objects::nonNull)
+                .flatMap(pageMap -> pageMap.entrySet().stream())
+                .map(entry -> new Posting(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @Override
+    public int getFrequency(List<Site> siteList, String lemma) {
+        return siteList.stream().map(siteEntity -> getIndex(siteEntity).postings().get(lemma))
+                .filter(Objects::nonNull).mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public Map<Integer, int[]> getPositions(List<Site> siteList, String lemma, Collection<Integer> pageIds) {
+        Map<Integer, int[]> result = new HashMap<>();
+        for (Site siteEntity : siteList) {
+            Map<Integer, TermFrequencies> pages = getIndex(siteEntity).pages();
+            for (Integer pageId : pageIds) {
+                TermFrequencies frequencies = pages.get(pageId);
+                if (frequencies != null && frequencies.get(lemma) > 0) {
+                    result.put(pageId, frequencies.positions(lemma));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TermFrequencies getVocabulary(Site siteEntity) {
+        TermFrequencies result = new TermFrequencies();
+        getIndex(siteEntity).postings().forEach((lemma, pageMap) -> result.add(lemma, pageMap.size()));
+        return result;
+    }
+
+    @Override
+    public int countLemmas(Site siteEntity) {
+        return getIndex(siteEntity).postings().size();
+    }
+
+    private SiteIndex getIndex(Site siteEntity) {
+        return indices.computeIfAbsent(siteEntity.getId(),
+                id -> new SiteIndex(new ConcurrentHashMap<>(), new ConcurrentHashMap<>()));
+    }
+}
@@ -0,0 +1,191 @@
+package searchengine.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import searchengine.model.IndexStatus;
+import searchengine.model.Page;
+import searchengine.model.Site;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@ConditionalOnProperty(prefix = "storage-settings", name = "type", havingValue = "memory")
+public class MemoryPageStore implements PageStore {
+    private final AtomicInteger siteSequence = new AtomicInteger();
+    private final AtomicInteger pageSequence = new AtomicInteger();
+
+    private final Map<Integer, Site> sites = new ConcurrentHashMap<>();
+    private final Map<Integer, Page> pages = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, Page>> paths = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, FrontierItem>> frontiers = new ConcurrentHashMap<>();
+    private final Map<Integer, Map.Entry<String, Long>> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public List<Site> getSites() {
+        return List.copyOf(sites.values());
+    }
+
+    @Override
+    public Optional<Site> getSite(String url) {
+        return sites.values().stream().filter(siteEntity -> siteEntity.getUrl().equals(url)).findFirst();
+    }
+
+    @Override
+    public synchronized Site saveSite(Site siteEntity) {
+        Optional<Site> existing = getSite(siteEntity.getUrl());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        siteEntity.setId(siteSequence.incrementAndGet());
+        siteEntity.setStatus(IndexStatus.INDEXING);
+        siteEntity.setStatusTime(LocalDateTime.now());
+        sites.put(siteEntity.getId(), siteEntity);
+        paths.put(siteEntity.getId(), new ConcurrentHashMap<>());
+        return siteEntity;
+    }
+
+    @Override
+    public void updateStatus(Site siteEntity, IndexStatus status, String error) {
+        Optional.ofNullable(sites.get(siteEntity.getId())).ifPresent(stored -> {
+            stored.setStatus(status);
+            stored.setLastError(error);
+            stored.setStatusTime(LocalDateTime.now());
+        });
+    }
+
+    @Override
+    public boolean existsByStatus(IndexStatus status) {
+        return sites.values().stream().anyMatch(siteEntity -> siteEntity.getStatus() == status);
+    }
+
+    @Override
+    public void removeSite(Site siteEntity) {
+        sites.remove(siteEntity.getId());
+        frontiers.remove(siteEntity.getId());
+        leases.remove(siteEntity.getId());
+        Optional.ofNullable(paths.remove(siteEntity.getId()))
+                .ifPresent(sitePages -> sitePages.values().forEach(pageEntity -> pages.remove(pageEntity.getId())));
+    }
+
+    @Override
+    public int countSites() {
+        return sites.size();
+    }
+
+    @Override
+    public void addPages(List<Page> pageList) {
+        pageList.forEach(pageEntity -> {
+            Map<String, Page> sitePages = paths.get(pageEntity.getSite().getId());
+            if (sitePages != null && sitePages.putIfAbsent(pageEntity.getPath(), pageEntity) == null) {
+                pageEntity.setId(pageSequence.incrementAndGet());
+                pages.put(pageEntity.getId(), pageEntity);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Page> getPage(Site siteEntity, String path) {
+        return Optional.ofNullable(paths.get(siteEntity.getId())).map(sitePages -> sitePages.get(path));
+    }
+
+    @Override
+    public List<Page> getPages(Collection<Integer> ids) {
+        return ids.stream().map(pages::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<Page> getPages(Site siteEntity) {
+        return Optional.ofNullable(paths.get(siteEntity.getId())).map(sitePages -> List.copyOf(sitePages.values()))
+                .orElse(List.of());
+    }
+
+    @Override
+    public int countPages(List<Site> siteList) {
+        return siteList.stream().map(siteEntity -> paths.get(siteEntity.getId())).filter(Objects::nonNull)
+                .mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public void removePage(Page pageEntity) {
+        pages.remove(pageEntity.getId());
+        Optional.ofNullable(paths.get(pageEntity.getSite().getId()))
+                .ifPresent(sitePages -> sitePages.remove(pageEntity.getPath(), pageEntity));
+    }
+
+    @Override
+    public void updatePage(Page pageEntity) {
+        Optional.ofNullable(pages.get(pageEntity.getId())).ifPresent(stored -> {
+            stored.setCode(pageEntity.getCode());
+            stored.setContent(pageEntity.getContent());
+            stored.setLastModified(pageEntity.getLastModified());
+        });
+    }
+
+    @Override
+    public void updateFingerprint(Page pageEntity, long fingerprint, Integer aliasOf) {
+        Optional.ofNullable(pages.get(pageEntity.getId())).ifPresent(stored -> {
+            stored.setFingerprint(fingerprint);
+            stored.setAliasOf(aliasOf);
+        });
+    }
+
+    @Override
+    public List<PageFingerprint> getFingerprints(Site siteEntity) {
+        return Optional.ofNullable(paths.get(siteEntity.getId())).map(Map::values).orElse(List.of()).stream()
+                .filter(pageEntity -> pageEntity.getAliasOf() == null && pageEntity.getFingerprint() != null)
+                .map(pageEntity -> new PageFingerprint(pageEntity.getId(), pageEntity.getFingerprint())).toList();
+    }
+
+    @Override
+    public List<Page> getAliases(Page pageEntity) {
+        return pages.values().stream().filter(stored -> Objects.equals(stored.getAliasOf(), pageEntity.getId()))
+                .toList();
+    }
+
+    @Override
+    public void saveFrontier(Site siteEntity, List<FrontierItem> offered, List<String> done) {
+        Map<String, FrontierItem> frontier = frontiers.computeIfAbsent(siteEntity.getId(),
+                id -> new ConcurrentHashMap<>());
+        offered.forEach(item -> frontier.putIfAbsent(item.path(), item));
+        done.forEach(path -> frontier.computeIfPresent(path,
+                (key, item) -> new FrontierItem(item.path(), item.depth(), item.priority(), true)));
+    }
+
+    @Override
+    public List<FrontierItem> getFrontier(Site siteEntity) {
+        return List.copyOf(frontiers.getOrDefault(siteEntity.getId(), Map.of()).values());
+    }
+
+    @Override
+    public List<Page> getUnfinishedPages(Site siteEntity) {
+        return getFrontier(siteEntity).stream().filter(item -> !item.done())
+                .map(item -> getPage(siteEntity, item.path())).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public void removeFrontier(Site siteEntity) {
+        frontiers.remove(siteEntity.getId());
+    }
+
+    @Override
+    public boolean acquireLease(Site siteEntity, String owner, long duration) {
+        long now = System.currentTimeMillis();
+        return leases.compute(siteEntity.getId(), (id, lease) -> lease == null || lease.getKey().equals(owner)
+                || lease.getValue() < now ? Map.entry(owner, now + duration) : lease).getKey().equals(owner);
+    }
+
+    @Override
+    public boolean renewLease(Site siteEntity, String owner, long duration) {
+        Map.Entry<String, Long> renewed = leases.computeIfPresent(siteEntity.getId(), (id, lease) ->
+                lease.getKey().equals(owner) ? Map.entry(owner, System.currentTimeMillis() + duration) : lease);
+        return renewed != null && renewed.getKey().equals(owner);
+    }
+
+    @Override
+    public void releaseLease(Site siteEntity, String owner) {
+        leases.computeIfPresent(siteEntity.getId(), (id, lease) -> lease.getKey().equals(owner) ? null : lease);
+    }
+}
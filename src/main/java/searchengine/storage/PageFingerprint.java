@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record PageFingerprint(int pageId, long fingerprint) {}
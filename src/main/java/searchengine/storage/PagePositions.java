@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record PagePositions(int pageId, byte[] positions) {}
@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record PagePosting(int lemmaId, String lemma, float rank, byte[] positions) {}
@@ -0,0 +1,59 @@
+package searchengine.storage;
+
+import searchengine.model.IndexStatus;
+import searchengine.model.Page;
+import searchengine.model.Site;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PageStore {
+    List<Site> getSites();
+
+    Optional<Site> getSite(String url);
+
+    Site saveSite(Site site);
+
+    void updateStatus(Site site, IndexStatus status, String error);
+
+    boolean existsByStatus(IndexStatus status);
+
+    void removeSite(Site site);
+
+    int countSites();
+
+    void addPages(List<Page> pages);
+
+    Optional<Page> getPage(Site site, String path);
+
+    List<Page> getPages(Collection<Integer> ids);
+
+    List<Page> getPages(Site site);
+
+    int countPages(List<Site> siteList);
+
+    void removePage(Page page);
+
+    void updatePage(Page page);
+
+    void updateFingerprint(Page page, long fingerprint, Integer aliasOf);
+
+    List<PageFingerprint> getFingerprints(Site site);
+
+    List<Page> getAliases(Page page);
+
+    void saveFrontier(Site site, List<FrontierItem> offered, List<String> done);
+
+    List<FrontierItem> getFrontier(Site site);
+
+    List<Page> getUnfinishedPages(Site site);
+
+    void removeFrontier(Site site);
+
+    boolean acquireLease(Site site, String owner, long duration);
+
+    boolean renewLease(Site site, String owner, long duration);
+
+    void releaseLease(Site site, String owner);
+}
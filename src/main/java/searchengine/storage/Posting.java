@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record Posting(int pageId, float rank) {}
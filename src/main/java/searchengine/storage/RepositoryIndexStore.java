@@ -0,0 +1,426 @@
+package searchengine.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import searchengine.config.StorageSettings;
+import searchengine.model.IndexStatus;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repositories.IndexRepository;
+import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.SiteRepository;
+import searchengine.storage.segment.Segment;
+import searchengine.storage.segment.SegmentWriter;
+import searchengine.utils.Positions;
+import searchengine.utils.TermFrequencies;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "storage-settings", name = "type", havingValue = "mysql", matchIfMissing = true)
+public class RepositoryIndexStore implements IndexStore {
+    @Autowired
+    private final LemmaRepository lemmaRepository;
+    @Autowired
+    private final IndexRepository indexRepository;
+    @Autowired
+    private final SiteRepository siteRepository;
+    @Autowired
+    private final StorageSettings settings;
+
+    private record LemmaEntry(int id, AtomicInteger frequency) {}
+
+    private static final int SNAPSHOT_BATCH = 1000;
+
+    private final Map<Integer, Map<String, LemmaEntry>> dictionaries = new ConcurrentHashMap<>();
+    private final ThreadLocal<PostingBuffer> buffers = ThreadLocal.withInitial(PostingBuffer::new);
+    private final IndexSnapshots snapshots = new IndexSnapshots();
+    private final ScheduledExecutorService snapshotWriter = Executors.newSingleThreadScheduledExecutor();
+
+    private static class PostingBuffer {
+        private int[] lemmaIds = new int[256];
+        private int[] counts = new int[256];
+        private byte[][] positions = new byte[256][];
+        private int size;
+        private final List<String> missing = new ArrayList<>();
+        private final StringBuilder json = new StringBuilder(1 << 14);
+
+        private void clear() {
+            Arrays.fill(positions, 0, size, null);
+            size = 0;
+            missing.clear();
+        }
+
+        private void add(int lemmaId, int count, byte[] encodedPositions) {
+            if (size == lemmaIds.length) {
+                lemmaIds = Arrays.copyOf(lemmaIds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            lemmaIds[size] = lemmaId;
+            positions[size] = encodedPositions;
+            counts[size++] = count;
+        }
+
+        private String missingJson() {
+            json.setLength(0);
+            json.append('[');
+            for (String lemma : missing) {
+                json.append('"');
+                for (int i = 0; i < lemma.length(); i++) {
+                    char c = lemma.charAt(i);
+                    json.append(c == '"' || c == '\\' ? "\\" : "").append(c);
+                }
+                json.append("\",");
+            }
+            return close();
+        }
+
+        private String lemmaIdsJson() {
+            int[] sorted = Arrays.copyOf(lemmaIds, size);
+            Arrays.sort(sorted);
+            json.setLength(0);
+            json.append('[');
+            for (int lemmaId : sorted) {
+                json.append(lemmaId).append(',');
+            }
+            return close();
+        }
+
+        private String postingsJson(int pageId) {
+            json.setLength(0);
+            json.append('[');
+            for (int i = 0; i < size; i++) {
+                json.append("{\"page_id\":").append(pageId).append(",\"lemma_id\":").append(lemmaIds[i])
+                        .append(",\"rank\":").append(counts[i]).append(",\"positions\":\"")
+                        .append(Base64.getEncoder().encodeToString(positions[i])).append("\"},");
+            }
+            return close();
+        }
+
+        private String close() {
+            json.setLength(json.length() - (json.length() > 1 ? 1 : 0));
+            return json.append(']').toString();
+        }
+    }
+
+    @PostConstruct
+    private void loadSnapshots() {
+        if (settings.getSnapshotPath().isEmpty()) {
+            return;
+        }
+        try {
+            for (int siteId : snapshots.open(Path.of(settings.getSnapshotPath()))) {
+                snapshots.load(siteId, siteRepository.findById(siteId)
+                        .filter(siteEntity -> siteEntity.getStatus() != IndexStatus.INDEXING)
+                        .map(Site::getIndexVersion).orElse(null));
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // снимки, которые не удалось подключить, будут записаны заново
+        }
+        snapshotWriter.scheduleWithFixedDelay(this::writeSnapshots, settings.getSnapshotInterval(),
+                settings.getSnapshotInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void stopSnapshots() {
+        snapshotWriter.shutdownNow();
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void addPostings(Page pageEntity, TermFrequencies frequencies) {
+        if (frequencies.isEmpty()) {
+            return;
+        }
+        Site siteEntity = pageEntity.getSite();
+        snapshots.invalidate(siteEntity.getId());
+        Map<String, LemmaEntry> dictionary = getDictionary(siteEntity);
+        PostingBuffer buffer = buffers.get();
+        buffer.clear();
+        Map<String, TermId> inserted = new HashMap<>();
+        insertMissing(siteEntity, dictionary, frequencies, buffer)
+                .forEach(termId -> inserted.put(termId.lemma(), termId));
+        List<String> counted = new ArrayList<>();
+        frequencies.forEach((lemma, count) -> {
+            LemmaEntry entry = dictionary.get(lemma);
+            int lemmaId = entry != null ? entry.id() : inserted.containsKey(lemma) ? inserted.get(lemma).id() : -1;
+            if (lemmaId >= 0) {
+                buffer.add(lemmaId, count, frequencies.encodePositions(lemma));
+                counted.add(lemma);
+            }
+        });
+        lemmaRepository.updateFrequenciesById(buffer.lemmaIdsJson(), 1);
+        indexRepository.insertAll(buffer.postingsJson(pageEntity.getId()));
+        siteRepository.incrementIndexVersion(siteEntity.getId());
+        afterCommit(() -> updateDictionary(dictionary, inserted.values(), counted, List.of()));
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void removePostings(Page pageEntity) {
+        snapshots.invalidate(pageEntity.getSite().getId());
+        List<PagePosting> postings = indexRepository.getPagePostings(pageEntity.getId());
+        if (!postings.isEmpty()) {
+            PostingBuffer buffer = buffers.get();
+            buffer.clear();
+            postings.forEach(posting -> buffer.add(posting.lemmaId(), 0, null));
+            String lemmaIds = buffer.lemmaIdsJson();
+            lemmaRepository.updateFrequenciesById(lemmaIds, -1);
+            indexRepository.deleteAllByPage(pageEntity.getId(), lemmaIds);
+            siteRepository.incrementIndexVersion(pageEntity.getSite().getId());
+            Map<String, LemmaEntry> dictionary = getDictionary(pageEntity.getSite());
+            List<String> lemmas = postings.stream().map(PagePosting::lemma).toList();
+            afterCommit(() -> updateDictionary(dictionary, List.of(), List.of(), lemmas));
+        }
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public void updatePostings(Page pageEntity, TermFrequencies frequencies) {
+        Site siteEntity = pageEntity.getSite();
+        snapshots.invalidate(siteEntity.getId());
+        int pageId = pageEntity.getId();
+        Map<String, LemmaEntry> dictionary = getDictionary(siteEntity);
+        Map<String, PagePosting> stored = new HashMap<>();
+        indexRepository.getPagePostings(pageId).forEach(posting -> stored.put(posting.lemma(), posting));
+        PostingBuffer added = buffers.get();
+        added.clear();
+        Map<String, TermId> inserted = new HashMap<>();
+        insertMissing(siteEntity, dictionary, frequencies, added)
+                .forEach(termId -> inserted.put(termId.lemma(), termId));
+        PostingBuffer changed = new PostingBuffer();
+        List<String> addedLemmas = new ArrayList<>();
+        frequencies.forEach((lemma, count) -> {
+            PagePosting posting = stored.remove(lemma);
+            byte[] positions = frequencies.encodePositions(lemma);
+            if (posting != null) {
+                if (posting.rank() != count || !Arrays.equals(posting.positions(), positions)) {
+                    changed.add(posting.lemmaId(), count, positions);
+                }
+                return;
+            }
+            LemmaEntry entry = dictionary.get(lemma);
+            int lemmaId = entry != null ? entry.id() : inserted.containsKey(lemma) ? inserted.get(lemma).id() : -1;
+            if (lemmaId >= 0) {
+                added.add(lemmaId, count, positions);
+                addedLemmas.add(lemma);
+            }
+        });
+        PostingBuffer removed = new PostingBuffer();
+        stored.values().forEach(posting -> removed.add(posting.lemmaId(), 0, null));
+        if (removed.size > 0) {
+            String lemmaIds = removed.lemmaIdsJson();
+            indexRepository.deleteAllByPage(pageId, lemmaIds);
+            lemmaRepository.updateFrequenciesById(lemmaIds, -1);
+        }
+        if (added.size > 0) {
+            lemmaRepository.updateFrequenciesById(added.lemmaIdsJson(), 1);
+            indexRepository.insertAll(added.postingsJson(pageId));
+        }
+        if (changed.size > 0) {
+            indexRepository.updateAll(changed.postingsJson(pageId));
+        }
+        if (removed.size > 0 || added.size > 0 || changed.size > 0) {
+            siteRepository.incrementIndexVersion(siteEntity.getId());
+        }
+        List<String> removedLemmas = List.copyOf(stored.keySet());
+        afterCommit(() -> updateDictionary(dictionary, inserted.values(), addedLemmas, removedLemmas));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static void updateDictionary(Map<String, LemmaEntry> dictionary, Collection<TermId> inserted,
+                                         List<String> added, List<String> removed) {
+        inserted.forEach(termId -> dictionary.putIfAbsent(termId.lemma(),
+                new LemmaEntry(termId.id(), new AtomicInteger(termId.frequency()))));
+        added.forEach(lemma -> Optional.ofNullable(dictionary.get(lemma))
+                .ifPresent(entry -> entry.frequency().incrementAndGet()));
+        removed.forEach(lemma -> Optional.ofNullable(dictionary.get(lemma))
+                .ifPresent(entry -> entry.frequency().decrementAndGet()));
+    }
+
+    @Override
+    public void removeSite(Site siteEntity) {
+        snapshots.invalidate(siteEntity.getId());
+        dictionaries.remove(siteEntity.getId());
+    }
+
+    @Override
+    public List<Posting> getPostings(List<Site> siteList, String lemma) {
+        List<Posting> result = new ArrayList<>();
+        siteList.stream().map(siteEntity -> snapshots.get(siteEntity.getId())).filter(Objects::nonNull)
+                .forEach(snapshot -> {
+                    int entry = snapshot.find(lemma);
+                    for (long posting : entry < 0 ? new long[0] : snapshot.postings(entry)) {
+                        result.add(new Posting(SegmentWriter.page(posting), SegmentWriter.rank(posting)));
+                    }
+                });
+        List<Integer> lemmaIds = getLemmaIds(siteList, lemma);
+        if (!lemmaIds.isEmpty()) {
+            result.addAll(indexRepository.getPostingsFromLemmaIdIn(lemmaIds));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Integer, int[]> getPositions(List<Site> siteList, String lemma, Collection<Integer> pageIds) {
+        Map<Integer, int[]> result = new HashMap<>();
+        siteList.stream().map(siteEntity -> snapshots.get(siteEntity.getId())).filter(Objects::nonNull)
+                .forEach(snapshot -> {
+                    int entry = snapshot.find(lemma);
+                    if (entry >= 0) {
+                        snapshot.positions(entry, pageIds, result);
+                    }
+                });
+        List<Integer> lemmaIds = getLemmaIds(siteList, lemma);
+        if (!lemmaIds.isEmpty() && !pageIds.isEmpty()) {
+            indexRepository.getPositions(lemmaIds, pageIds).forEach(pagePositions ->
+                    result.put(pagePositions.pageId(), Positions.decode(pagePositions.positions())));
+        }
+        return result;
+    }
+
+    @Override
+    public int getFrequency(List<Site> siteList, String lemma) {
+        return siteList.stream().mapToInt(siteEntity -> {
+            Segment snapshot = snapshots.get(siteEntity.getId());
+            if (snapshot != null) {
+                int entry = snapshot.find(lemma);
+                return entry < 0 ? 0 : snapshot.docFreq(entry);
+            }
+            LemmaEntry entry = getDictionary(siteEntity).get(lemma);
+            return entry == null ? 0 : entry.frequency().get();
+        }).sum();
+    }
+
+    @Override
+    public TermFrequencies getVocabulary(Site siteEntity) {
+        TermFrequencies result = new TermFrequencies();
+        Segment snapshot = snapshots.get(siteEntity.getId());
+        if (snapshot != null) {
+            snapshot.addTerms(result);
+        } else {
+            getDictionary(siteEntity).forEach((lemma, entry) -> {
+                if (entry.frequency().get() > 0) {
+                    result.add(lemma, entry.frequency().get());
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public int countLemmas(Site siteEntity) {
+        return getDictionary(siteEntity).size();
+    }
+
+    private List<Integer> getLemmaIds(List<Site> siteList, String lemma) {
+        return siteList.stream().filter(siteEntity -> snapshots.get(siteEntity.getId()) == null)
+                .map(siteEntity -> getDictionary(siteEntity).get(lemma)).filter(Objects::nonNull)
+                .map(LemmaEntry::id).toList();
+    }
+
+    private void writeSnapshots() {
+        try {
+            for (Site siteEntity : siteRepository.findAll()) {
+                if (siteEntity.getStatus() == IndexStatus.INDEXING) {
+                    snapshots.invalidate(siteEntity.getId());
+                } else if (!snapshots.matches(siteEntity.getId(), siteEntity.getIndexVersion())) {
+                    snapshots.invalidate(siteEntity.getId());
+                    writeSnapshot(siteEntity);
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // повторная попытка при следующем запуске
+        }
+    }
+
+    private void writeSnapshot(Site siteEntity) throws IOException {
+        int siteId = siteEntity.getId();
+        long generation = snapshots.generation(siteId);
+        List<TermId> terms = lemmaRepository.getTermIds(siteEntity).stream()
+                .sorted(Comparator.comparing(TermId::lemma)).toList();
+        try (SegmentWriter writer = snapshots.writer(siteId)) {
+            for (int start = 0; start < terms.size(); start += SNAPSHOT_BATCH) {
+                List<TermId> batch = terms.subList(start, Math.min(start + SNAPSHOT_BATCH, terms.size()));
+                Map<Integer, List<LemmaPosting>> postings = indexRepository
+                        .getLemmaPostings(batch.stream().map(TermId::id).toList()).stream()
+                        .collect(Collectors.groupingBy(LemmaPosting::lemmaId));
+                for (TermId term : batch) {
+                    List<LemmaPosting> list = postings.getOrDefault(term.id(), List.of()).stream()
+                            .sorted(Comparator.comparingInt(LemmaPosting::pageId)).toList();
+                    long[] packed = new long[list.size()];
+                    byte[][] positions = new byte[list.size()][];
+                    for (int i = 0; i < list.size(); i++) {
+                        packed[i] = SegmentWriter.pack(list.get(i).pageId(), list.get(i).rank());
+                        positions[i] = list.get(i).positions();
+                    }
+                    writer.addTerm(term.lemma(), packed, positions, list.size());
+                }
+            }
+        }
+        snapshots.install(siteId, generation, siteEntity.getIndexVersion());
+    }
+
+    private List<TermId> insertMissing(Site siteEntity, Map<String, LemmaEntry> dictionary,
+                                       TermFrequencies frequencies, PostingBuffer buffer) {
+        frequencies.forEach((lemma, count) -> {
+            if (!dictionary.containsKey(lemma)) {
+                buffer.missing.add(lemma);
+            }
+        });
+        if (buffer.missing.isEmpty()) {
+            return List.of();
+        }
+        buffer.missing.sort(null);
+        lemmaRepository.insertAll(siteEntity.getId(), buffer.missingJson());
+        return lemmaRepository.getTermIds(siteEntity, buffer.missing);
+    }
+
+    private Map<String, LemmaEntry> getDictionary(Site siteEntity) {
+        return dictionaries.computeIfAbsent(siteEntity.getId(), id -> {
+            Map<String, LemmaEntry> dictionary = new ConcurrentHashMap<>();
+            lemmaRepository.getTermIds(siteEntity).forEach(termId -> dictionary.put(termId.lemma(),
+                    new LemmaEntry(termId.id(), new AtomicInteger(termId.frequency()))));
+            return dictionary;
+        });
+    }
+}
@@ -0,0 +1,191 @@
+package searchengine.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import searchengine.model.IndexStatus;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repositories.FrontierRepository;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteLeaseRepository;
+import searchengine.repositories.SiteRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${storage-settings.type:mysql}' != 'memory'")
+public class RepositoryPageStore implements PageStore {
+    @Autowired
+    private final SiteRepository siteRepository;
+    @Autowired
+    private final PageRepository pageRepository;
+    @Autowired
+    private final FrontierRepository frontierRepository;
+    @Autowired
+    private final SiteLeaseRepository siteLeaseRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Map<Integer, AtomicInteger> pageCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public List<Site> getSites() {
+        return siteRepository.findAll();
+    }
+
+    @Override
+    public Optional<Site> getSite(String url) {
+        return siteRepository.findByUrl(url);
+    }
+
+    @Override
+    public Site saveSite(Site siteEntity) {
+        return siteRepository.saveAndFlush(siteEntity);
+    }
+
+    @Override
+    public void updateStatus(Site siteEntity, IndexStatus status, String error) {
+        siteRepository.updateStatus(siteEntity.getId(), status, error);
+    }
+
+    @Override
+    public boolean existsByStatus(IndexStatus status) {
+        return siteRepository.existsByStatusIs(status);
+    }
+
+    @Override
+    public void removeSite(Site siteEntity) {
+        siteRepository.deleteById(siteEntity.getId());
+        pageCounts.remove(siteEntity.getId());
+    }
+
+    @Override
+    public int countSites() {
+        return (int) siteRepository.count();
+    }
+
+    @Override
+    public void addPages(List<Page> pages) {
+        pages.forEach(pageEntity -> getPageCount(pageEntity.getSite()));
+        pageRepository.insertAll(pages.stream().map(pageEntity -> {
+            try {
+                return objectMapper.writeValueAsString(pageEntity);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException(e);
+            }
+        }).collect(Collectors.joining(",", "[", "]")));
+        pages.forEach(pageEntity -> getPageCount(pageEntity.getSite()).incrementAndGet());
+    }
+
+    @Override
+    public Optional<Page> getPage(Site siteEntity, String path) {
+        return pageRepository.findBySiteAndPath(siteEntity, path);
+    }
+
+    @Override
+    public List<Page> getPages(Collection<Integer> ids) {
+        return pageRepository.findAllById(ids);
+    }
+
+    @Override
+    public List<Page> getPages(Site siteEntity) {
+        return pageRepository.findAllBySite(siteEntity);
+    }
+
+    @Override
+    public int countPages(List<Site> siteList) {
+        return siteList.stream().mapToInt(siteEntity -> getPageCount(siteEntity).get()).sum();
+    }
+
+    @Override
+    public void removePage(Page pageEntity) {
+        pageRepository.delete(pageEntity);
+        getPageCount(pageEntity.getSite()).decrementAndGet();
+    }
+
+    @Override
+    public void updatePage(Page pageEntity) {
+        pageRepository.updateContent(pageEntity.getId(), pageEntity.getCode(), pageEntity.getContent(),
+                pageEntity.getLastModified());
+    }
+
+    @Override
+    public void updateFingerprint(Page pageEntity, long fingerprint, Integer aliasOf) {
+        pageRepository.updateFingerprint(pageEntity.getId(), fingerprint, aliasOf);
+    }
+
+    @Override
+    public List<PageFingerprint> getFingerprints(Site siteEntity) {
+        return pageRepository.getFingerprints(siteEntity);
+    }
+
+    @Override
+    public List<Page> getAliases(Page pageEntity) {
+        return pageRepository.findAllByAliasOf(pageEntity.getId());
+    }
+
+    @Override
+    public void saveFrontier(Site siteEntity, List<FrontierItem> offered, List<String> done) {
+        offered.stream().map(FrontierItem::path).filter(path -> path.length() > Page.MAX_PATH_LENGTH).findAny()
+                .ifPresent(path -> {
+                    throw new IllegalArgumentException("Слишком длинный адрес в очереди обхода: " + path);
+                });
+        try {
+            if (!offered.isEmpty()) {
+                frontierRepository.insertAll(siteEntity.getId(), objectMapper.writeValueAsString(offered));
+            }
+            if (!done.isEmpty()) {
+                frontierRepository.markDone(siteEntity.getId(), objectMapper.writeValueAsString(done));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<FrontierItem> getFrontier(Site siteEntity) {
+        return frontierRepository.getFrontier(siteEntity);
+    }
+
+    @Override
+    public List<Page> getUnfinishedPages(Site siteEntity) {
+        return pageRepository.findAllUnfinished(siteEntity);
+    }
+
+    @Override
+    public void removeFrontier(Site siteEntity) {
+        frontierRepository.deleteAllBySite(siteEntity);
+    }
+
+    @Override
+    public boolean acquireLease(Site siteEntity, String owner, long duration) {
+        return siteLeaseRepository.insertLease(siteEntity.getId(), owner, duration) > 0
+                || siteLeaseRepository.takeOverLease(siteEntity.getId(), owner, duration) > 0;
+    }
+
+    @Override
+    public boolean renewLease(Site siteEntity, String owner, long duration) {
+        return siteLeaseRepository.renewLease(siteEntity.getId(), owner, duration) > 0;
+    }
+
+    @Override
+    public void releaseLease(Site siteEntity, String owner) {
+        siteLeaseRepository.releaseLease(siteEntity.getId(), owner);
+    }
+
+    private AtomicInteger getPageCount(Site siteEntity) {
+        return pageCounts.computeIfAbsent(siteEntity.getId(),
+                id -> new AtomicInteger(pageRepository.countAllBySite(siteEntity)));
+    }
+}
@@ -0,0 +1,126 @@
+package searchengine.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import searchengine.config.StorageSettings;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.storage.segment.SegmentIndex;
+import searchengine.utils.TermFrequencies;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "storage-settings", name = "type", havingValue = "segment")
+public class SegmentIndexStore implements IndexStore {
+    @Autowired
+    private final StorageSettings settings;
+
+    private final Map<Integer, SegmentIndex> indices = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService merger = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    private void startMerger() {
+        merger.scheduleWithFixedDelay(() -> indices.values().forEach(index -> {
+            try {
+                index.merge(settings.getMergeFactor());
+            } catch (IOException | RuntimeException ignored) {
+                // повторная попытка при следующем запуске
+            }
+        }), settings.getMergeInterval(), settings.getMergeInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void close() {
+        merger.shutdown();
+        indices.values().forEach(this::flush);
+    }
+
+    @Override
+    public void addPostings(Page pageEntity, TermFrequencies frequencies) {
+        SegmentIndex index = getIndex(pageEntity.getSite());
+        index.add(pageEntity.getId(), frequencies);
+        if (index.buffered() >= settings.getFlushPages()) {
+            flush(index);
+        }
+    }
+
+    @Override
+    public void removePostings(Page pageEntity) {
+        getIndex(pageEntity.getSite()).delete(pageEntity.getId());
+    }
+
+    @Override
+    public void removeSite(Site siteEntity) {
+        try {
+            getIndex(siteEntity).drop();
+            indices.remove(siteEntity.getId());
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Posting> getPostings(List<Site> siteList, String lemma) {
+        return siteList.stream().flatMap(siteEntity -> getIndex(siteEntity).postings(lemma).stream()).toList();
+    }
+
+    @Override
+    public Map<Integer, int[]> getPositions(List<Site> siteList, String lemma, Collection<Integer> pageIds) {
+        Map<Integer, int[]> result = new HashMap<>();
+        siteList.forEach(siteEntity -> result.putAll(getIndex(siteEntity).positions(lemma, pageIds)));
+        return result;
+    }
+
+    @Override
+    public int getFrequency(List<Site> siteList, String lemma) {
+        return siteList.stream().mapToInt(siteEntity -> getIndex(siteEntity).docFreq(lemma)).sum();
+    }
+
+    @Override
+    public TermFrequencies getVocabulary(Site siteEntity) {
+        return getIndex(siteEntity).vocabulary();
+    }
+
+    @Override
+    public int countLemmas(Site siteEntity) {
+        return getIndex(siteEntity).termCount();
+    }
+
+    @Override
+    public void flush(Site siteEntity) {
+        flush(getIndex(siteEntity));
+    }
+
+    private void flush(SegmentIndex index) {
+        try {
+            index.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    private SegmentIndex getIndex(Site siteEntity) {
+        return indices.computeIfAbsent(siteEntity.getId(), id -> {
+            try {
+                return SegmentIndex.open(Path.of(settings.getPath(), String.valueOf(id)));
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+        });
+    }
+}
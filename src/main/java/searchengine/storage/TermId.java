@@ -0,0 +1,3 @@
+package searchengine.storage;
+
+public record TermId(int id, String lemma, int frequency) {}
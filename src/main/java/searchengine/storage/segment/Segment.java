@@ -0,0 +1,287 @@
+package searchengine.storage.segment;
+
+import searchengine.utils.Positions;
+import searchengine.utils.TermFrequencies;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+
+public class Segment {
+    record Postings(long[] postings, byte[][] positions) {}
+
+    private record LiveFreqs(BitSet deleted, int[] values) {}
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final boolean hasPositions;
+    private final int termCount;
+    private final int offsetsStart;
+    private final int entriesStart;
+
+    private volatile BitSet deleted;
+    private volatile boolean dirty;
+    private volatile LiveFreqs liveFreqs;
+
+    private Segment(Path file, ByteBuffer buffer, BitSet deleted) {
+        this.file = file;
+        this.buffer = buffer;
+        this.deleted = deleted;
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != SegmentWriter.MAGIC || version < 1 || version > SegmentWriter.VERSION) {
+            throw new IllegalStateException("Unsupported segment format: " + file);
+        }
+        this.hasPositions = version >= 2;
+        int dictionary = buffer.getInt(8);
+        this.termCount = buffer.getInt(dictionary);
+        this.offsetsStart = dictionary + Integer.BYTES;
+        this.entriesStart = offsetsStart + termCount * Integer.BYTES;
+    }
+
+    public static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Path deletions = deletionsFile(file);
+            BitSet deleted = Files.exists(deletions) ? BitSet.valueOf(Files.readAllBytes(deletions)) : new BitSet();
+            return new Segment(file, buffer, deleted);
+        }
+    }
+
+    static Path deletionsFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".del");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long size() {
+        return buffer.capacity();
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    public int find(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0, high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = compareTerm(middle, key);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public String term(int entry) {
+        int position = entryPosition(entry);
+        int length = readVarInt(position);
+        byte[] bytes = new byte[length];
+        buffer.get(position + varIntSize(length), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int docFreq(int entry) {
+        BitSet deletedPages = deleted;
+        if (deletedPages.isEmpty()) {
+            return buffer.getInt(termEnd(entry) + Integer.BYTES);
+        }
+        LiveFreqs cache = liveFreqs;
+        if (cache == null || cache.deleted() != deletedPages) {
+            int[] values = new int[termCount];
+            Arrays.fill(values, -1);
+            cache = new LiveFreqs(deletedPages, values);
+            liveFreqs = cache;
+        }
+        int value = cache.values()[entry];
+        if (value < 0) {
+            value = countLive(entry, deletedPages);
+            cache.values()[entry] = value;
+        }
+        return value;
+    }
+
+    public void addTerms(TermFrequencies result) {
+        for (int entry = 0; entry < termCount(); entry++) {
+            int docFreq = docFreq(entry);
+            if (docFreq > 0) {
+                result.add(term(entry), docFreq);
+            }
+        }
+    }
+
+    public long[] postings(int entry) {
+        return read(entry, false).postings();
+    }
+
+    public void positions(int entry, Collection<Integer> pageIds, Map<Integer, int[]> result) {
+        if (!hasPositions) {
+            return;
+        }
+        int position = buffer.getInt(termEnd(entry));
+        int count = readVarInt(position);
+        position += varIntSize(count);
+        BitSet deletedPages = deleted;
+        int page = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = readVarInt(position);
+            position += varIntSize(delta) + Integer.BYTES;
+            page += delta;
+            int length = readVarInt(position);
+            position += varIntSize(length);
+            if (!deletedPages.get(page) && pageIds.contains(page)) {
+                result.put(page, Positions.decode(buffer, position, length));
+            }
+            position += length;
+        }
+    }
+
+    Postings read(int entry, boolean withPositions) {
+        int position = buffer.getInt(termEnd(entry));
+        int count = readVarInt(position);
+        position += varIntSize(count);
+        BitSet deletedPages = deleted;
+        long[] result = new long[count];
+        byte[][] positions = withPositions ? new byte[count][] : null;
+        int size = 0, page = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = readVarInt(position);
+            position += varIntSize(delta);
+            page += delta;
+            int rank = buffer.getInt(position);
+            position += Integer.BYTES;
+            int length = 0;
+            if (hasPositions) {
+                length = readVarInt(position);
+                position += varIntSize(length);
+            }
+            if (!deletedPages.get(page)) {
+                if (withPositions) {
+                    positions[size] = new byte[length];
+                    buffer.get(position, positions[size]);
+                }
+                result[size++] = SegmentWriter.pack(page, rank);
+            }
+            position += length;
+        }
+        return size == count ? new Postings(result, positions)
+                : new Postings(Arrays.copyOf(result, size), withPositions ? Arrays.copyOf(positions, size) : null);
+    }
+
+    private int countLive(int entry, BitSet deletedPages) {
+        int position = buffer.getInt(termEnd(entry));
+        int count = readVarInt(position);
+        position += varIntSize(count);
+        int live = 0, page = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = readVarInt(position);
+            position += varIntSize(delta) + Integer.BYTES;
+            page += delta;
+            if (hasPositions) {
+                int length = readVarInt(position);
+                position += varIntSize(length) + length;
+            }
+            live += deletedPages.get(page) ? 0 : 1;
+        }
+        return live;
+    }
+
+    public synchronized void delete(int pageId) {
+        if (!deleted.get(pageId)) {
+            BitSet copy = (BitSet) deleted.clone();
+            copy.set(pageId);
+            deleted = copy;
+            dirty = true;
+        }
+    }
+
+    BitSet getDeleted() {
+        return deleted;
+    }
+
+    synchronized void deleteAll(BitSet pages) {
+        BitSet copy = (BitSet) deleted.clone();
+        copy.or(pages);
+        if (!copy.equals(deleted)) {
+            deleted = copy;
+            dirty = true;
+        }
+    }
+
+    synchronized void writeDeletions() throws IOException {
+        if (dirty) {
+            Path target = deletionsFile(file);
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.write(temp, deleted.toByteArray());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        }
+    }
+
+    void deleteFiles() {
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(deletionsFile(file));
+        } catch (IOException ignored) {
+            // файл будет удалён при следующем открытии индекса
+        }
+    }
+
+    private int entryPosition(int entry) {
+        return entriesStart + buffer.getInt(offsetsStart + entry * Integer.BYTES);
+    }
+
+    private int termEnd(int entry) {
+        int position = entryPosition(entry);
+        int length = readVarInt(position);
+        return position + varIntSize(length) + length;
+    }
+
+    private int compareTerm(int entry, byte[] key) {
+        int position = entryPosition(entry);
+        int length = readVarInt(position);
+        position += varIntSize(length);
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int compare = Integer.compare(buffer.get(position + i) & 0xFF, key[i] & 0xFF);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private int readVarInt(int position) {
+        int result = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position++);
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+    }
+
+    static int varIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+}
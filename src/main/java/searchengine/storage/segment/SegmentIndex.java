@@ -0,0 +1,280 @@
+package searchengine.storage.segment;
+
+import searchengine.storage.Posting;
+import searchengine.utils.TermFrequencies;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class SegmentIndex {
+    private static final String MANIFEST = "segments";
+    private static final String EXTENSION = ".seg";
+
+    private final Path directory;
+    private volatile List<Segment> segments;
+    private final Map<Integer, TermFrequencies> buffer = new HashMap<>();
+    private int generation;
+    private boolean merging;
+
+    private SegmentIndex(Path directory, List<Segment> segments, int generation) {
+        this.directory = directory;
+        this.segments = segments;
+        this.generation = generation;
+    }
+
+    public static SegmentIndex open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        List<String> names = Files.exists(manifest) ? Files.readAllLines(manifest) : List.of();
+        List<Segment> segments = new ArrayList<>();
+        for (String name : names) {
+            segments.add(Segment.open(directory.resolve(name)));
+        }
+        int generation = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                int extension = name.indexOf(EXTENSION);
+                if (name.equals(MANIFEST)) {
+                    continue;
+                }
+                if (extension > 0 && !name.endsWith(".tmp")
+                        && names.contains(name.substring(0, extension + EXTENSION.length()))) {
+                    generation = Math.max(generation, Integer.parseInt(name.substring(0, extension)));
+                } else {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return new SegmentIndex(directory, List.copyOf(segments), generation);
+    }
+
+    public synchronized void add(int pageId, TermFrequencies frequencies) {
+        buffer.put(pageId, frequencies);
+    }
+
+    public synchronized void delete(int pageId) {
+        buffer.remove(pageId);
+        segments.forEach(segment -> segment.delete(pageId));
+    }
+
+    public synchronized int buffered() {
+        return buffer.size();
+    }
+
+    public synchronized void flush() throws IOException {
+        List<Segment> result = new ArrayList<>(segments);
+        if (!buffer.isEmpty()) {
+            TreeMap<String, List<Long>> terms = new TreeMap<>();
+            buffer.forEach((pageId, frequencies) -> frequencies.forEach((term, count) -> terms
+                    .computeIfAbsent(term, x -> new ArrayList<>()).add(SegmentWriter.pack(pageId, (float) count))));
+            Path file = directory.resolve(nextName());
+            try (SegmentWriter writer = new SegmentWriter(file)) {
+                for (Map.Entry<String, List<Long>> entry : terms.entrySet()) {
+                    long[] postings = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+                    byte[][] positions = new byte[postings.length][];
+                    for (int i = 0; i < postings.length; i++) {
+                        positions[i] = buffer.get(SegmentWriter.page(postings[i])).encodePositions(entry.getKey());
+                    }
+                    writer.addTerm(entry.getKey(), postings, positions, postings.length);
+                }
+            }
+            result.add(Segment.open(file));
+        }
+        for (Segment segment : result) {
+            segment.writeDeletions();
+        }
+        if (result.size() != segments.size()) {
+            writeManifest(result);
+            segments = List.copyOf(result);
+        }
+        buffer.clear();
+    }
+
+    public boolean merge(int mergeFactor) throws IOException {
+        List<Segment> candidates;
+        List<BitSet> deletions;
+        Path file;
+        synchronized (this) {
+            if (merging || segments.size() <= Math.max(mergeFactor, 1)) {
+                return false;
+            }
+            candidates = segments.stream().sorted(Comparator.comparingLong(Segment::size))
+                    .limit(Math.max(mergeFactor, 2)).toList();
+            deletions = candidates.stream().map(Segment::getDeleted).toList();
+            file = directory.resolve(nextName());
+            merging = true;
+        }
+        try {
+            writeMerged(file, candidates);
+            Segment merged = Segment.open(file);
+            synchronized (this) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    BitSet added = (BitSet) candidates.get(i).getDeleted().clone();
+                    added.andNot(deletions.get(i));
+                    merged.deleteAll(added);
+                }
+                merged.writeDeletions();
+                List<Segment> result = new ArrayList<>(segments);
+                result.removeAll(candidates);
+                result.add(merged);
+                writeManifest(result);
+                segments = List.copyOf(result);
+            }
+            candidates.forEach(Segment::deleteFiles);
+            return true;
+        } finally {
+            synchronized (this) {
+                merging = false;
+            }
+        }
+    }
+
+    public List<Posting> postings(String term) {
+        List<long[]> parts = new ArrayList<>();
+        for (Segment segment : segments) {
+            int entry = segment.find(term);
+            if (entry >= 0) {
+                parts.add(segment.postings(entry));
+            }
+        }
+        synchronized (this) {
+            parts.add(buffer.entrySet().stream().filter(entry -> entry.getValue().get(term) > 0)
+                    .mapToLong(entry -> SegmentWriter.pack(entry.getKey(), (float) entry.getValue().get(term)))
+                    .toArray());
+        }
+        long[] postings = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        List<Posting> result = new ArrayList<>(postings.length);
+        for (long posting : postings) {
+            result.add(new Posting(SegmentWriter.page(posting), SegmentWriter.rank(posting)));
+        }
+        return result;
+    }
+
+    public Map<Integer, int[]> positions(String term, Collection<Integer> pageIds) {
+        Map<Integer, int[]> result = new HashMap<>();
+        for (Segment segment : segments) {
+            int entry = segment.find(term);
+            if (entry >= 0) {
+                segment.positions(entry, pageIds, result);
+            }
+        }
+        synchronized (this) {
+            for (Integer pageId : pageIds) {
+                TermFrequencies frequencies = buffer.get(pageId);
+                if (frequencies != null && frequencies.get(term) > 0) {
+                    result.put(pageId, frequencies.positions(term));
+                }
+            }
+        }
+        return result;
+    }
+
+    public int docFreq(String term) {
+        int result = 0;
+        for (Segment segment : segments) {
+            int entry = segment.find(term);
+            result += entry >= 0 ? segment.docFreq(entry) : 0;
+        }
+        synchronized (this) {
+            return result + (int) buffer.values().stream().filter(frequencies -> frequencies.get(term) > 0).count();
+        }
+    }
+
+    public TermFrequencies vocabulary() {
+        TermFrequencies result = new TermFrequencies();
+        for (Segment segment : segments) {
+            segment.addTerms(result);
+        }
+        synchronized (this) {
+            buffer.values().forEach(frequencies -> frequencies.forEach((term, count) -> result.add(term, 1)));
+        }
+        return result;
+    }
+
+    public int termCount() {
+        Set<String> terms = new HashSet<>();
+        for (Segment segment : segments) {
+            for (int entry = 0; entry < segment.termCount(); entry++) {
+                if (segment.docFreq(entry) > 0) {
+                    terms.add(segment.term(entry));
+                }
+            }
+        }
+        synchronized (this) {
+            buffer.values().forEach(frequencies -> terms.addAll(frequencies.terms()));
+        }
+        return terms.size();
+    }
+
+    public synchronized void drop() throws IOException {
+        buffer.clear();
+        segments = List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private void writeMerged(Path file, List<Segment> candidates) throws IOException {
+        record Cursor(Segment segment, int entry, String term) {}
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparing(Cursor::term));
+        candidates.stream().filter(segment -> segment.termCount() > 0)
+                .forEach(segment -> queue.add(new Cursor(segment, 0, segment.term(0))));
+        try (SegmentWriter writer = new SegmentWriter(file)) {
+            while (!queue.isEmpty()) {
+                String term = queue.peek().term();
+                List<Segment.Postings> parts = new ArrayList<>();
+                while (!queue.isEmpty() && queue.peek().term().equals(term)) {
+                    Cursor cursor = queue.poll();
+                    parts.add(cursor.segment().read(cursor.entry(), true));
+                    int next = cursor.entry() + 1;
+                    if (next < cursor.segment().termCount()) {
+                        queue.add(new Cursor(cursor.segment(), next, cursor.segment().term(next)));
+                    }
+                }
+                Segment.Postings postings = parts.size() == 1 ? parts.get(0) : concat(parts);
+                writer.addTerm(term, postings.postings(), postings.positions(), postings.postings().length);
+            }
+        }
+    }
+
+    private static Segment.Postings concat(List<Segment.Postings> parts) {
+        int count = parts.stream().mapToInt(part -> part.postings().length).sum();
+        long[] postings = new long[count];
+        byte[][] positions = new byte[count][];
+        int size = 0;
+        for (Segment.Postings part : parts) {
+            System.arraycopy(part.postings(), 0, postings, size, part.postings().length);
+            System.arraycopy(part.positions(), 0, positions, size, part.positions().length);
+            size += part.postings().length;
+        }
+        Integer[] order = new Integer[count];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingLong(i -> postings[i]));
+        long[] sortedPostings = new long[count];
+        byte[][] sortedPositions = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            sortedPostings[i] = postings[order[i]];
+            sortedPositions[i] = positions[order[i]];
+        }
+        return new Segment.Postings(sortedPostings, sortedPositions);
+    }
+
+    private void writeManifest(List<Segment> result) throws IOException {
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        Files.write(temp, result.stream().map(segment -> segment.getFile().getFileName().toString()).toList());
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized String nextName() {
+        return String.format("%08d", ++generation) + EXTENSION;
+    }
+}
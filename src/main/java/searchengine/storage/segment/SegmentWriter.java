@@ -0,0 +1,129 @@
+package searchengine.storage.segment;
+
+import searchengine.utils.Positions;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пишет сегмент индекса. Термины должны добавляться в порядке возрастания.
+ * <pre>
+ * заголовок:   int MAGIC, int VERSION, int смещение словаря
+ * словопозиции: varint количество, далее varint разность номеров страниц, int биты ранга,
+ *              varint длина и позиции слов на странице в формате {@link Positions#encode}
+ *              (в версии 1 позиций нет)
+ * словарь:     int количество терминов, int[] смещения записей, записи
+ *              (varint длина, UTF-8 термин, int смещение словопозиций, int частота)
+ * </pre>
+ */
+public class SegmentWriter implements Closeable {
+    static final int MAGIC = 0x5345474D;
+    static final int VERSION = 2;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path file;
+    private final Path temp;
+    private final FileChannel channel;
+    private final DataOutputStream output;
+    private final List<byte[]> terms = new ArrayList<>();
+    private final List<int[]> entries = new ArrayList<>();
+    private int position;
+
+    public SegmentWriter(Path file) throws IOException {
+        this.file = file;
+        this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(0);
+        position = HEADER_SIZE;
+    }
+
+    static long pack(int pageId, int rankBits) {
+        return (long) pageId << 32 | (rankBits & 0xFFFFFFFFL);
+    }
+
+    public static long pack(int pageId, float rank) {
+        return pack(pageId, Float.floatToRawIntBits(rank));
+    }
+
+    public static int page(long posting) {
+        return (int) (posting >>> 32);
+    }
+
+    public static float rank(long posting) {
+        return Float.intBitsToFloat((int) posting);
+    }
+
+    public void addTerm(String term, long[] postings, byte[][] positions, int count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        terms.add(term.getBytes(StandardCharsets.UTF_8));
+        entries.add(new int[]{position, count});
+        writeVarInt(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int page = page(postings[i]);
+            writeVarInt(page - previous);
+            output.writeInt((int) postings[i]);
+            position += Integer.BYTES;
+            byte[] pagePositions = positions[i] == null ? EMPTY : positions[i];
+            writeVarInt(pagePositions.length);
+            output.write(pagePositions);
+            position += pagePositions.length;
+            previous = page;
+        }
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        int dictionary = position;
+        output.writeInt(terms.size());
+        int offset = 0;
+        for (byte[] term : terms) {
+            output.writeInt(offset);
+            offset += Segment.varIntSize(term.length) + term.length + 2 * Integer.BYTES;
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            writeVarInt(terms.get(i).length);
+            output.write(terms.get(i));
+            output.writeInt(entries.get(i)[0]);
+            output.writeInt(entries.get(i)[1]);
+        }
+        output.flush();
+        channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, dictionary), 2 * Integer.BYTES);
+        channel.force(true);
+        output.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            position++;
+        }
+        output.writeByte(value);
+        position++;
+    }
+}
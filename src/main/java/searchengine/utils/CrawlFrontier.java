@@ -0,0 +1,104 @@
+package searchengine.utils;
+
+import searchengine.model.IndexError;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+public class CrawlFrontier {
+    public record Entry(URI url, int depth, double priority) {}
+
+    private static final int SEEN_FACTOR = 10;
+
+    private final UrlNormalizer normalizer;
+    private final RobotsRules robots;
+    private final int maxPages;
+    private final int maxDepth;
+    private final long deadline;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingDouble(Entry::priority)
+            .reversed().thenComparingInt(Entry::depth));
+    private final Set<String> seen = new HashSet<>();
+    private final List<Entry> offered = new ArrayList<>();
+    private int scheduled;
+    private long nextFetch;
+
+    public CrawlFrontier(UrlNormalizer normalizer, RobotsRules robots, int maxPages, int maxDepth, long timeout) {
+        this.normalizer = normalizer;
+        this.robots = robots;
+        this.maxPages = maxPages;
+        this.maxDepth = maxDepth;
+        this.deadline = System.currentTimeMillis() + timeout;
+    }
+
+    public static double priority(int depth) {
+        return 1.0 / (depth + 1);
+    }
+
+    public UrlNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    public synchronized boolean offer(String address, int depth, double priority) {
+        if (address == null || depth > maxDepth || isFull() || !seen.add(address)
+                || !robots.isAllowed(normalizer.getPath(address))) {
+            return false;
+        }
+        Entry entry = new Entry(URI.create(address), depth, priority);
+        queue.add(entry);
+        offered.add(entry);
+        return true;
+    }
+
+    public synchronized void restore(String address, int depth, double priority, boolean done) {
+        if (!seen.add(address)) {
+            return;
+        }
+        if (done) {
+            scheduled++;
+        } else {
+            queue.add(new Entry(URI.create(address), depth, priority));
+        }
+    }
+
+    public synchronized List<Entry> drainOffered() {
+        List<Entry> result = List.copyOf(offered);
+        offered.clear();
+        return result;
+    }
+
+    public synchronized List<Entry> poll(int count) {
+        List<Entry> result = new ArrayList<>();
+        while (!isExhausted() && result.size() < count) {
+            result.add(queue.poll());
+            scheduled++;
+        }
+        return result;
+    }
+
+    public synchronized boolean isExhausted() {
+        return queue.isEmpty() || scheduled >= maxPages || System.currentTimeMillis() >= deadline;
+    }
+
+    public synchronized boolean isFull() {
+        return seen.size() >= (long) maxPages * SEEN_FACTOR;
+    }
+
+    public void await() {
+        long delay = robots.getCrawlDelay(), wait;
+        if (delay <= 0) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis(), slot = Math.max(now, nextFetch);
+            nextFetch = slot + delay;
+            wait = slot - now;
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(IndexError.INTERRUPTED.toString());
+        }
+    }
+}
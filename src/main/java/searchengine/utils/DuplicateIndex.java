@@ -0,0 +1,66 @@
+package searchengine.utils;
+
+import java.util.*;
+
+public class DuplicateIndex {
+    private static final int MAX_DISTANCE = 7;
+
+    private record Entry(int pageId, long fingerprint) {}
+
+    private final int maxDistance;
+    private final int bands;
+    private final int bandBits;
+    private final List<Map<Integer, List<Entry>>> buckets = new ArrayList<>();
+    private final Map<Integer, Long> fingerprints = new HashMap<>();
+
+    public DuplicateIndex(int maxDistance) {
+        this.maxDistance = Math.min(maxDistance, MAX_DISTANCE);
+        this.bands = Math.max(this.maxDistance, 0) + 1;
+        this.bandBits = Long.SIZE / bands;
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    public synchronized OptionalInt register(int pageId, long fingerprint) {
+        if (maxDistance >= 0) {
+            for (int band = 0; band < bands; band++) {
+                for (Entry entry : buckets.get(band).getOrDefault(band(fingerprint, band), List.of())) {
+                    if (entry.pageId() != pageId && SimHash.distance(entry.fingerprint(), fingerprint) <= maxDistance) {
+                        return OptionalInt.of(entry.pageId());
+                    }
+                }
+            }
+        }
+        add(pageId, fingerprint);
+        return OptionalInt.empty();
+    }
+
+    public synchronized void add(int pageId, long fingerprint) {
+        remove(pageId);
+        fingerprints.put(pageId, fingerprint);
+        Entry entry = new Entry(pageId, fingerprint);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(band(fingerprint, band), x -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    public synchronized void remove(int pageId) {
+        Long fingerprint = fingerprints.remove(pageId);
+        if (fingerprint == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            int key = band(fingerprint, band);
+            List<Entry> bucket = buckets.get(band).get(key);
+            bucket.removeIf(entry -> entry.pageId() == pageId);
+            if (bucket.isEmpty()) {
+                buckets.get(band).remove(key);
+            }
+        }
+    }
+
+    private int band(long fingerprint, int band) {
+        return (int) (fingerprint >>> band * bandBits & (1L << bandBits) - 1);
+    }
+}
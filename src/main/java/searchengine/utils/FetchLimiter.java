@@ -0,0 +1,80 @@
+package searchengine.utils;
+
+import searchengine.model.IndexError;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FetchLimiter {
+    private static final double DECREASE = 0.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_DRIFT = 0.001;
+
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private double latency;
+    private double baseline;
+    private long lastDecrease;
+
+    public FetchLimiter(int initialLimit, int maxLimit, double latencyTolerance) {
+        this.maxLimit = Math.max(maxLimit, 1);
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(Math.max(initialLimit, 1), this.maxLimit);
+        this.lastDecrease = System.nanoTime();
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void acquire() {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                released.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(IndexError.INTERRUPTED.toString());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long nanos, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight-- >= (int) limit;
+            long now = System.nanoTime();
+            if (overloaded) {
+                if (now - lastDecrease > latency) {
+                    limit = Math.max(1, limit * DECREASE);
+                    lastDecrease = now;
+                }
+            } else {
+                latency = latency == 0 ? nanos : latency + SMOOTHING * (nanos - latency);
+                baseline = baseline == 0 ? latency
+                        : Math.min(latency, baseline + BASELINE_DRIFT * (latency - baseline));
+                if (latency > baseline * latencyTolerance) {
+                    limit = Math.max(1, limit - 1 / limit);
+                } else if (saturated) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package searchengine.utils;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class HtmlExtractor {
+    public record Content(PageText text, List<String> links, String base) {}
+
+    private final Map<String, Integer> fieldWeights;
+    private final PageText text = new PageText();
+    private final Set<String> links = new LinkedHashSet<>();
+    private String base;
+
+    private HtmlExtractor(Map<String, Integer> fieldWeights) {
+        this.fieldWeights = fieldWeights;
+    }
+
+    public static Content extract(Reader reader, Map<String, Integer> fieldWeights) {
+        HtmlExtractor extractor = new HtmlExtractor(fieldWeights);
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(reader, "")) {
+            Element closed;
+            while ((closed = parser.selectNext("*")) != null) {
+                extractor.consume(closed);
+            }
+            extractor.consumeRest(parser.document());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Content(extractor.text, List.copyOf(extractor.links), extractor.base);
+    }
+
+    private void consume(Element closed) {
+        List<Element> path = new ArrayList<>();
+        for (Element parent = closed.parent(); parent != null; parent = parent.parent()) {
+            path.add(0, parent);
+        }
+        int weight = 1;
+        for (int i = 0; i < path.size(); i++) {
+            Element ancestor = path.get(i);
+            weight = Math.max(weight, weightOf(ancestor));
+            Node next = i + 1 < path.size() ? path.get(i + 1) : closed;
+            while (ancestor.childNodeSize() > 0 && ancestor.childNode(0) != next) {
+                Node node = ancestor.childNode(0);
+                visit(node, weight);
+                node.remove();
+            }
+        }
+        if (closed.parent() != null) {
+            visit(closed, weight);
+            closed.remove();
+        }
+    }
+
+    private void consumeRest(Element root) {
+        while (root.childNodeSize() > 0) {
+            Node node = root.childNode(0);
+            visit(node, 1);
+            node.remove();
+        }
+    }
+
+    private void visit(Node node, int weight) {
+        if (node instanceof TextNode textNode) {
+            if (!textNode.isBlank()) {
+                text.append(textNode.text(), weight);
+            }
+        } else if (node instanceof Element element) {
+            if (element.normalName().equals("a") && element.hasAttr("href")) {
+                links.add(element.attr("href"));
+            } else if (base == null && element.normalName().equals("base") && element.hasAttr("href")) {
+                base = element.attr("href");
+            }
+            int elementWeight = Math.max(weight, weightOf(element));
+            for (Node child : element.childNodes()) {
+                visit(child, elementWeight);
+            }
+        }
+    }
+
+    private int weightOf(Element element) {
+        return fieldWeights.getOrDefault(element.normalName(), 1);
+    }
+}
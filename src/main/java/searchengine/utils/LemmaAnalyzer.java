@@ -0,0 +1,178 @@
+package searchengine.utils;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
+import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+import org.springframework.stereotype.Component;
+import searchengine.config.SiteList;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class LemmaAnalyzer {
+    private record Language(LuceneMorphology morphology, String[] particlesNames) {}
+
+    private static final int CHUNK_SIZE = 1 << 15;
+    private static final Set<String> WEEK_DAYS = Set.of("пн", "вт", "ср", "чт", "пт", "сб", "вс");
+    private static final String REJECTED = "";
+    private static final Pattern WORD = Pattern.compile("[a-z]+|[а-я]+");
+
+    private final Language russian;
+    private final Language english;
+    private final SiteList sites;
+
+    public LemmaAnalyzer(SiteList sites) {
+        this.sites = sites;
+        try {
+            russian = new Language(new RussianLuceneMorphology(), new String[]{"МЕЖД", "ПРЕДЛ", "СОЮЗ", "ЧАСТ"});
+            english = new Language(new EnglishLuceneMorphology(),
+                    new String[]{"INT", "PREP", "CONJ", "ARTICLE", "PART"});
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    public TermFrequencies analyzeHtml(String html) {
+        return analyze(HtmlExtractor.extract(new StringReader(html), sites.getFieldWeights()).text());
+    }
+
+    public TermFrequencies analyze(PageText text) {
+        return analyze(text.getText(), text);
+    }
+
+    public TermFrequencies analyze(CharSequence text) {
+        return analyze(text, new PageText());
+    }
+
+    private TermFrequencies analyze(CharSequence text, PageText runs) {
+        return text.length() <= CHUNK_SIZE ? analyze(text, 0, text.length(), runs)
+                : new ChunkTask(text, 0, text.length(), runs).invoke();
+    }
+
+    public List<String> getNormalForms(String word) {
+        String lowerCase = word.toLowerCase().replace('ё', 'е');
+        Language language = switch (script(lowerCase.isEmpty() ? ' ' : lowerCase.charAt(0))) {
+            case 1 -> english;
+            case 2 -> russian;
+            default -> null;
+        };
+        try {
+            return language == null ? List.of() : language.morphology().getNormalForms(lowerCase);
+        } catch (RuntimeException e) {
+            return List.of();
+        }
+    }
+
+    public Set<String> getUnknownWords(CharSequence text) {
+        Set<String> result = new LinkedHashSet<>();
+        Matcher matcher = WORD.matcher(text.toString().toLowerCase().replace('ё', 'е'));
+        while (matcher.find()) {
+            if (matcher.end() - matcher.start() >= 2 && getNormalForms(matcher.group()).isEmpty()) {
+                result.add(matcher.group());
+            }
+        }
+        return result;
+    }
+
+    private TermFrequencies analyze(CharSequence text, int from, int to, PageText runs) {
+        TermFrequencies result = new TermFrequencies();
+        Map<String, String> lemmas = new HashMap<>();
+        StringBuilder word = new StringBuilder(32);
+        int wordScript = 0, position = 0, run = runs.find(from);
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? Character.toLowerCase(text.charAt(i)) : ' ';
+            int script = script(c);
+            if (script != wordScript && !word.isEmpty()) {
+                String key = word.toString();
+                String lemma = lemmas.get(key);
+                if (lemma == null) {
+                    lemma = lemmatize(key, wordScript);
+                    lemmas.put(key, lemma);
+                }
+                if (!lemma.isEmpty()) {
+                    int wordStart = i - word.length();
+                    while (run + 1 < runs.size && runs.starts[run + 1] <= wordStart) {
+                        run++;
+                    }
+                    result.addPosition(lemma, position, run < 0 ? 1 : runs.weights[run]);
+                }
+                position++;
+                word.setLength(0);
+            }
+            if (script != 0) {
+                word.append(c == 'ё' ? 'е' : c);
+            }
+            wordScript = script;
+        }
+        result.setTokenCount(position);
+        return result;
+    }
+
+    private String lemmatize(String word, int script) {
+        if (word.length() < 2 || script == 2 && WEEK_DAYS.contains(word)) {
+            return REJECTED;
+        }
+        Language language = script == 2 ? russian : english;
+        try {
+            for (String info : language.morphology().getMorphInfo(word)) {
+                String upperCase = info.toUpperCase();
+                for (String property : language.particlesNames()) {
+                    if (upperCase.contains(property)) {
+                        return REJECTED;
+                    }
+                }
+            }
+            List<String> normalForms = language.morphology().getNormalForms(word);
+            return normalForms.isEmpty() ? REJECTED : normalForms.get(0);
+        } catch (RuntimeException e) {
+            return REJECTED;
+        }
+    }
+
+    private static int script(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1;
+        }
+        return c >= 'а' && c <= 'я' || c == 'ё' ? 2 : 0;
+    }
+
+    private class ChunkTask extends RecursiveTask<TermFrequencies> {
+        private final CharSequence text;
+        private final int from;
+        private final int to;
+        private final PageText runs;
+
+        private ChunkTask(CharSequence text, int from, int to, PageText runs) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+            this.runs = runs;
+        }
+
+        @Override
+        protected TermFrequencies compute() {
+            int middle = from + (to - from) / 2;
+            while (middle < to && script(Character.toLowerCase(text.charAt(middle))) != 0) {
+                middle++;
+            }
+            if (to - from <= CHUNK_SIZE || middle == to) {
+                return analyze(text, from, to, runs);
+            }
+            ChunkTask left = new ChunkTask(text, from, middle, runs);
+            left.fork();
+            TermFrequencies right = new ChunkTask(text, middle, to, runs).compute();
+            TermFrequencies result = left.join();
+            result.append(right);
+            return result;
+        }
+    }
+}
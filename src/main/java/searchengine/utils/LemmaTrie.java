@@ -0,0 +1,102 @@
+package searchengine.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LemmaTrie {
+    public record Match(String lemma, int frequency, int distance) {}
+
+    private static final int NONE = -1;
+
+    private char[] labels = new char[64];
+    private int[] children = new int[64];
+    private int[] siblings = new int[64];
+    private int[] frequencies = new int[64];
+    private int size = 1;
+
+    private LemmaTrie() {
+        children[0] = siblings[0] = frequencies[0] = NONE;
+    }
+
+    public static LemmaTrie of(TermFrequencies vocabulary) {
+        LemmaTrie trie = new LemmaTrie();
+        List<String> lemmas = vocabulary.terms();
+        lemmas.sort(null);
+        for (String lemma : lemmas) {
+            trie.insert(lemma, vocabulary.get(lemma));
+        }
+        return trie;
+    }
+
+    public List<Match> search(String word, int maxEdits, boolean prefix) {
+        List<Match> result = new ArrayList<>();
+        int[] row = new int[word.length() + 1];
+        Arrays.setAll(row, i -> i);
+        StringBuilder path = new StringBuilder();
+        for (int child = children[0]; child != NONE; child = siblings[child]) {
+            search(child, word, row, maxEdits, prefix, false, path, result);
+        }
+        return result;
+    }
+
+    private void search(int node, String word, int[] previous, int maxEdits, boolean prefix, boolean underPrefix,
+                        StringBuilder path, List<Match> result) {
+        int length = word.length();
+        int[] row = new int[length + 1];
+        row[0] = previous[0] + 1;
+        int min = row[0];
+        for (int i = 1; i <= length; i++) {
+            int substitution = previous[i - 1] + (word.charAt(i - 1) == labels[node] ? 0 : 1);
+            row[i] = Math.min(substitution, Math.min(row[i - 1], previous[i]) + 1);
+            min = Math.min(min, row[i]);
+        }
+        path.append(labels[node]);
+        boolean matched = underPrefix || prefix && path.length() == length && row[length] == 0;
+        if (frequencies[node] != NONE && (row[length] <= maxEdits || matched)) {
+            result.add(new Match(path.toString(), frequencies[node],
+                    row[length] <= maxEdits ? row[length] : maxEdits + 1));
+        }
+        if (min <= maxEdits || matched) {
+            for (int child = children[node]; child != NONE; child = siblings[child]) {
+                search(child, word, row, maxEdits, prefix, matched, path, result);
+            }
+        }
+        path.setLength(path.length() - 1);
+    }
+
+    private void insert(String lemma, int frequency) {
+        int node = 0;
+        for (int i = 0; i < lemma.length(); i++) {
+            char c = lemma.charAt(i);
+            int last = NONE;
+            for (int child = children[node]; child != NONE; child = siblings[child]) {
+                last = child;
+            }
+            if (last != NONE && labels[last] == c) {
+                node = last;
+                continue;
+            }
+            int added = addNode(c);
+            if (last == NONE) {
+                children[node] = added;
+            } else {
+                siblings[last] = added;
+            }
+            node = added;
+        }
+        frequencies[node] = frequency;
+    }
+
+    private int addNode(char label) {
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size * 2);
+            children = Arrays.copyOf(children, size * 2);
+            siblings = Arrays.copyOf(siblings, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        labels[size] = label;
+        children[size] = siblings[size] = frequencies[size] = NONE;
+        return size++;
+    }
+}
@@ -0,0 +1,165 @@
+package searchengine.utils;
+
+import searchengine.config.SiteList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PageFetcher {
+    public record Response(URI uri, int code, String html, HtmlExtractor.Content content) {
+        public boolean isPage() {
+            return html != null;
+        }
+    }
+
+    private static final int SNIFF_SIZE = 1024;
+    private static final Pattern CHARSET = Pattern.compile("charset\\s*=\\s*[\"']?([\\w.:-]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final HttpClient client;
+    private final String userAgent;
+    private final Duration timeout;
+    private final long maxBodySize;
+    private final List<String> contentTypes;
+    private final Map<String, Integer> fieldWeights;
+
+    public PageFetcher(HttpClient client, SiteList settings) {
+        this.client = client;
+        this.userAgent = settings.getUserAgent();
+        this.timeout = Duration.ofMillis(settings.getFetchTimeout());
+        this.maxBodySize = settings.getMaxBodySize();
+        this.contentTypes = settings.getContentTypes();
+        this.fieldWeights = settings.getFieldWeights();
+    }
+
+    public Response fetch(URI url) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(url).header("User-Agent", userAgent)
+                .header("Accept", String.join(", ", contentTypes)).timeout(timeout).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            Optional<String> type = response.headers().firstValue("Content-Type");
+            if (type.isPresent() && !contentTypes.contains(mediaType(type.get()))) {
+                return new Response(response.uri(), response.statusCode(), null, null);
+            }
+            InputStream input = new BufferedInputStream(new LimitedInputStream(body, maxBodySize), SNIFF_SIZE);
+            input.mark(SNIFF_SIZE);
+            byte[] head = input.readNBytes(SNIFF_SIZE);
+            input.reset();
+            Optional<Charset> charset = type.flatMap(PageFetcher::charset);
+            if (charset.isEmpty() && isBinary(head)) {
+                return new Response(response.uri(), response.statusCode(), null, null);
+            }
+            StringBuilder html = new StringBuilder();
+            // разборщику нужен читатель с mark(); символы попадают в html один раз, при чтении из потока
+            Reader reader = new BufferedReader(new CopyingReader(new InputStreamReader(input, charset.or(() ->
+                    charset(new String(head, StandardCharsets.ISO_8859_1))).orElse(StandardCharsets.UTF_8)), html));
+            HtmlExtractor.Content content = HtmlExtractor.extract(reader, fieldWeights);
+            return new Response(response.uri(), response.statusCode(), html.toString(), content);
+        }
+    }
+
+    private static String mediaType(String contentType) {
+        int end = contentType.indexOf(';');
+        return (end < 0 ? contentType : contentType.substring(0, end)).strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static Optional<Charset> charset(String text) {
+        Matcher matcher = CHARSET.matcher(text);
+        try {
+            return matcher.find() ? Optional.of(Charset.forName(matcher.group(1))) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isBinary(byte[] head) {
+        for (byte b : head) {
+            if (b == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            remaining -= b < 0 ? 0 : 1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = in.read(buffer, offset, (int) Math.min(length, remaining));
+            remaining -= Math.max(count, 0);
+            return count;
+        }
+    }
+
+    private static class CopyingReader extends FilterReader {
+        private final StringBuilder copy;
+
+        private CopyingReader(Reader in, StringBuilder copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = in.read();
+            if (c >= 0) {
+                copy.append((char) c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = in.read(buffer, offset, length);
+            if (count > 0) {
+                copy.append(buffer, offset, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            char[] buffer = new char[(int) Math.min(count, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+    }
+}
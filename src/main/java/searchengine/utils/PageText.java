@@ -0,0 +1,35 @@
+package searchengine.utils;
+
+import java.util.Arrays;
+
+public class PageText {
+    private final StringBuilder text = new StringBuilder();
+    int[] starts = new int[16];
+    int[] weights = new int[16];
+    int size;
+
+    public void append(String part, int weight) {
+        if (size == 0 || weights[size - 1] != weight) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            starts[size] = text.length();
+            weights[size++] = weight;
+        }
+        text.append(part).append(' ');
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    int find(int index) {
+        int run = Arrays.binarySearch(starts, 0, size, index);
+        return run >= 0 ? run : -run - 2;
+    }
+}
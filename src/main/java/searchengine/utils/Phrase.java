@@ -0,0 +1,53 @@
+package searchengine.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record Phrase(List<String> lemmas, int[] offsets) {
+    public static Phrase of(TermFrequencies frequencies) {
+        List<long[]> words = new ArrayList<>();
+        List<String> terms = frequencies.terms();
+        for (int i = 0; i < terms.size(); i++) {
+            for (int position : frequencies.positions(terms.get(i))) {
+                words.add(new long[]{position, i});
+            }
+        }
+        if (words.size() < 2) {
+            return null;
+        }
+        words.sort((left, right) -> Long.compare(left[0], right[0]));
+        List<String> lemmas = new ArrayList<>(words.size());
+        int[] offsets = new int[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            lemmas.add(terms.get((int) words.get(i)[1]));
+            offsets[i] = (int) (words.get(i)[0] - words.get(0)[0]);
+        }
+        return new Phrase(List.copyOf(lemmas), offsets);
+    }
+
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lemmas.size(); i++) {
+            builder.append(i == 0 ? "" : ",").append(lemmas.get(i)).append(':').append(offsets[i]);
+        }
+        return builder.toString();
+    }
+
+    public static Phrase decode(String text) {
+        String[] words = text.split(",");
+        if (words.length < 2) {
+            throw new IllegalArgumentException(text);
+        }
+        List<String> lemmas = new ArrayList<>(words.length);
+        int[] offsets = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            int colon = words[i].lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException(text);
+            }
+            lemmas.add(words[i].substring(0, colon));
+            offsets[i] = Integer.parseInt(words[i].substring(colon + 1));
+        }
+        return new Phrase(List.copyOf(lemmas), offsets);
+    }
+}
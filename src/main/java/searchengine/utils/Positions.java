@@ -0,0 +1,109 @@
+package searchengine.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Позиции слов на странице: кодирование разностями в varint и пересечение отсортированных списков позиций.
+ */
+public final class Positions {
+    private static final int[] EMPTY = new int[0];
+
+    private Positions() {}
+
+    public static byte[] encode(int[] positions, int count) {
+        byte[] buffer = new byte[count * 5];
+        int size = 0, previous = 0;
+        for (int i = 0; i < count; i++) {
+            int value = positions[i] - previous;
+            previous = positions[i];
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public static int[] decode(byte[] bytes) {
+        return bytes == null ? EMPTY : decode(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    public static int[] decode(ByteBuffer buffer, int offset, int length) {
+        int[] result = new int[length];
+        int size = 0, previous = 0, end = offset + length;
+        while (offset < end) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(offset++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            previous += value;
+            result[size++] = previous;
+        }
+        return size == length ? result : Arrays.copyOf(result, size);
+    }
+
+    public static boolean containsPhrase(int[][] lists, int[] offsets) {
+        int driver = 0;
+        for (int i = 1; i < lists.length; i++) {
+            driver = lists[i].length < lists[driver].length ? i : driver;
+        }
+        int[] cursors = new int[lists.length];
+        for (int position : lists[driver]) {
+            int start = position - offsets[driver];
+            boolean matches = true;
+            for (int i = 0; i < lists.length && matches; i++) {
+                if (i != driver) {
+                    cursors[i] = advance(lists[i], cursors[i], start + offsets[i]);
+                    if (cursors[i] >= lists[i].length) {
+                        return false;
+                    }
+                    matches = lists[i][cursors[i]] == start + offsets[i];
+                }
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static int minimalSpan(int[][] lists) {
+        int[] cursors = new int[lists.length];
+        for (int[] list : lists) {
+            if (list.length == 0) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        int best = Integer.MAX_VALUE;
+        while (true) {
+            int lowest = 0, highest = Integer.MIN_VALUE;
+            for (int i = 0; i < lists.length; i++) {
+                int value = lists[i][cursors[i]];
+                lowest = value < lists[lowest][cursors[lowest]] ? i : lowest;
+                highest = Math.max(highest, value);
+            }
+            best = Math.min(best, highest - lists[lowest][cursors[lowest]] + 1);
+            if (++cursors[lowest] == lists[lowest].length) {
+                return best;
+            }
+        }
+    }
+
+    private static int advance(int[] list, int from, int target) {
+        int step = 1, low = from, high = from;
+        while (high < list.length && list[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, list.length);
+        int index = Arrays.binarySearch(list, low, high, target);
+        return index >= 0 ? index : -index - 1;
+    }
+}
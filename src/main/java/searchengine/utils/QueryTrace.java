@@ -0,0 +1,78 @@
+package searchengine.utils;
+
+import searchengine.dto.searching.SearchTrace;
+import searchengine.dto.searching.SearchTracePhase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class QueryTrace implements AutoCloseable {
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+    private static final int MAX_STATEMENTS = 200;
+
+    private final long start = System.nanoTime();
+    private final List<SearchTracePhase> phases = new ArrayList<>();
+    private final List<String> statements = new ArrayList<>();
+    private int statementCount;
+    private int phaseStatements;
+
+    private QueryTrace() {}
+
+    public static QueryTrace begin() {
+        QueryTrace trace = new QueryTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static long mark() {
+        return CURRENT.get() == null ? 0 : System.nanoTime();
+    }
+
+    public static void phase(String name, long mark, int rows) {
+        QueryTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.phases.add(new SearchTracePhase(name, millis(System.nanoTime() - mark), rows,
+                    trace.statementCount - trace.phaseStatements));
+            trace.phaseStatements = trace.statementCount;
+        }
+    }
+
+    public static void statement(String sql) {
+        QueryTrace trace = CURRENT.get();
+        if (trace != null && trace.statementCount++ < MAX_STATEMENTS) {
+            trace.statements.add(sql);
+        }
+    }
+
+    public double getMillis() {
+        return millis(System.nanoTime() - start);
+    }
+
+    public SearchTrace toSearchTrace() {
+        SearchTrace result = new SearchTrace();
+        result.setMillis(getMillis());
+        result.setPhases(List.copyOf(phases));
+        result.setStatementCount(statementCount);
+        result.setStatements(List.copyOf(statements));
+        return result;
+    }
+
+    public String describe() {
+        return phases.stream().map(phase -> String.format("%s %.1f мс, строк %d, SQL %d", phase.getName(),
+                phase.getMillis(), phase.getRows(), phase.getStatements())).collect(Collectors.joining("; "));
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public void close() {
+        CURRENT.remove();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
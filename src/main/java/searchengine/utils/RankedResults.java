@@ -0,0 +1,54 @@
+package searchengine.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class RankedResults {
+    private final long[] ranked;
+    private final float maxRank;
+    private final long created = System.currentTimeMillis();
+
+    private RankedResults(long[] ranked) {
+        this.ranked = ranked;
+        this.maxRank = ranked.length == 0 ? 0 : rank(0);
+    }
+
+    public static RankedResults of(Map<Integer, Float> rankMap) {
+        long[] ranked = new long[rankMap.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Float> entry : rankMap.entrySet()) {
+            ranked[i++] = key(entry.getValue(), entry.getKey());
+        }
+        Arrays.sort(ranked);
+        return new RankedResults(ranked);
+    }
+
+    public int size() {
+        return ranked.length;
+    }
+
+    public int pageId(int position) {
+        return (int) ranked[position];
+    }
+
+    public float rank(int position) {
+        return Float.intBitsToFloat(~(int) (ranked[position] >>> 32));
+    }
+
+    public float getMaxRank() {
+        return maxRank;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public int positionAfter(float rank, int pageId) {
+        int position = Arrays.binarySearch(ranked, key(rank, pageId));
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private static long key(float rank, int pageId) {
+        return (long) ~Float.floatToIntBits(Math.max(rank, 0f)) << 32 | (pageId & 0xFFFFFFFFL);
+    }
+}
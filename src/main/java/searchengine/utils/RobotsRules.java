@@ -0,0 +1,142 @@
+package searchengine.utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class RobotsRules {
+    private record Rule(String pattern, boolean allow) {}
+
+    private final List<Rule> rules;
+    private final long crawlDelay;
+    private final List<String> sitemaps;
+
+    private RobotsRules(List<Rule> rules, long crawlDelay, List<String> sitemaps) {
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+        this.sitemaps = sitemaps;
+    }
+
+    public static RobotsRules empty() {
+        return new RobotsRules(List.of(), 0, List.of());
+    }
+
+    public static RobotsRules fetch(HttpClient client, URI base, String userAgent) {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/robots.txt"))
+                    .header("User-Agent", userAgent).timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? parse(response.body(), userAgent) : empty();
+        } catch (IOException e) {
+            return empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return empty();
+        }
+    }
+
+    public static RobotsRules parse(String text, String userAgent) {
+        String agent = userAgent.toLowerCase(Locale.ROOT);
+        List<Rule> specific = new ArrayList<>(), common = new ArrayList<>();
+        List<String> sitemaps = new ArrayList<>();
+        long specificDelay = -1, commonDelay = -1;
+        boolean matchesSpecific = false, matchesCommon = false, specificFound = false, groupStarted = false;
+        for (String line : text.lines().toList()) {
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).strip();
+            int colon = content.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = content.substring(0, colon).strip().toLowerCase(Locale.ROOT);
+            String value = content.substring(colon + 1).strip();
+            switch (field) {
+                case "user-agent" -> {
+                    if (groupStarted) {
+                        matchesSpecific = matchesCommon = groupStarted = false;
+                    }
+                    String name = value.toLowerCase(Locale.ROOT);
+                    if (name.equals("*")) {
+                        matchesCommon = true;
+                    } else if (!name.isEmpty() && agent.contains(name)) {
+                        matchesSpecific = specificFound = true;
+                    }
+                }
+                case "allow", "disallow" -> {
+                    groupStarted = true;
+                    if (!value.isEmpty()) {
+                        Rule rule = new Rule(value, field.equals("allow"));
+                        if (matchesSpecific) {
+                            specific.add(rule);
+                        }
+                        if (matchesCommon) {
+                            common.add(rule);
+                        }
+                    }
+                }
+                case "crawl-delay" -> {
+                    groupStarted = true;
+                    try {
+                        long delay = (long) (Double.parseDouble(value) * 1000);
+                        specificDelay = matchesSpecific ? delay : specificDelay;
+                        commonDelay = matchesCommon ? delay : commonDelay;
+                    } catch (NumberFormatException ignored) {
+                        // некорректное значение игнорируется
+                    }
+                }
+                case "sitemap" -> sitemaps.add(value);
+                default -> groupStarted = true;
+            }
+        }
+        return specificFound ? new RobotsRules(specific, Math.max(specificDelay, 0), sitemaps)
+                : new RobotsRules(common, Math.max(commonDelay, 0), sitemaps);
+    }
+
+    public boolean isAllowed(String path) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (matches(rule.pattern(), path) && (best == null || rule.pattern().length() > best.pattern().length()
+                    || rule.pattern().length() == best.pattern().length() && rule.allow())) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow();
+    }
+
+    public long getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    private static boolean matches(String pattern, String path) {
+        boolean anchored = pattern.endsWith("$");
+        return matches(anchored ? pattern.substring(0, pattern.length() - 1) : pattern, 0, path, 0, anchored);
+    }
+
+    private static boolean matches(String pattern, int p, String path, int s, boolean anchored) {
+        for (; p < pattern.length(); p++, s++) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                for (int i = s; i <= path.length(); i++) {
+                    if (matches(pattern, p + 1, path, i, anchored)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (s >= path.length() || path.charAt(s) != c) {
+                return false;
+            }
+        }
+        return !anchored || s == path.length();
+    }
+}
@@ -0,0 +1,32 @@
+package searchengine.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+public record SearchCursor(String site, List<String> lemmas, List<String> otherLemmas, List<Phrase> phrases,
+                           float rank, int pageId) {
+    private static final String VERSION = "2";
+
+    public String encode() {
+        String text = String.join("\n", VERSION, site == null ? "" : site, String.join(" ", lemmas),
+                String.join(" ", otherLemmas), String.join(" ", phrases.stream().map(Phrase::encode).toList()),
+                Integer.toHexString(Float.floatToIntBits(rank)), Integer.toString(pageId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        String[] fields = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", -1);
+        if (fields.length != 7 || !fields[0].equals(VERSION) || fields[2].isEmpty()) {
+            throw new IllegalArgumentException(token);
+        }
+        return new SearchCursor(fields[1].isEmpty() ? null : fields[1], split(fields[2]), split(fields[3]),
+                split(fields[4]).stream().map(Phrase::decode).toList(),
+                Float.intBitsToFloat(Integer.parseUnsignedInt(fields[5], 16)), Integer.parseInt(fields[6]));
+    }
+
+    private static List<String> split(String field) {
+        return field.isEmpty() ? List.of() : Arrays.asList(field.split(" "));
+    }
+}
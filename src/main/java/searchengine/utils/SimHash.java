@@ -0,0 +1,38 @@
+package searchengine.utils;
+
+public final class SimHash {
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private SimHash() {}
+
+    public static long fingerprint(TermFrequencies frequencies) {
+        double[] vector = new double[Long.SIZE];
+        frequencies.forEach((term, count) -> {
+            long hash = hash(term);
+            double value = 1 + Math.log(Math.max(count, 1));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                vector[bit] += (hash >>> bit & 1) != 0 ? value : -value;
+            }
+        });
+        long result = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            result |= vector[bit] > 0 ? 1L << bit : 0;
+        }
+        return result;
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    private static long hash(String term) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < term.length(); i++) {
+            hash = (hash ^ term.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ hash >>> 33) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ hash >>> 33) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,117 @@
+package searchengine.utils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+public class SitemapReader {
+    public interface Consumer {
+        boolean accept(URI url, double priority);
+    }
+
+    private static final int MAX_SITEMAPS = 50;
+    private static final double DEFAULT_PRIORITY = 0.5;
+
+    private final HttpClient client;
+    private final String userAgent;
+    private final XMLInputFactory factory = XMLInputFactory.newFactory();
+
+    public SitemapReader(HttpClient client, String userAgent) {
+        this.client = client;
+        this.userAgent = userAgent;
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public void read(Iterable<URI> sitemaps, Consumer consumer) {
+        Deque<URI> queue = new ArrayDeque<>();
+        sitemaps.forEach(queue::add);
+        Set<URI> visited = new HashSet<>();
+        boolean proceed = true;
+        while (proceed && !queue.isEmpty() && visited.size() < MAX_SITEMAPS) {
+            URI sitemap = queue.poll();
+            if (visited.add(sitemap)) {
+                proceed = read(sitemap, queue, consumer);
+            }
+        }
+    }
+
+    private boolean read(URI sitemap, Deque<URI> queue, Consumer consumer) {
+        try {
+            HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(sitemap)
+                    .header("User-Agent", userAgent).timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body();
+                 InputStream input = sitemap.getPath().endsWith(".gz") ? new GZIPInputStream(body) : body) {
+                return response.statusCode() != 200 || parse(input, queue, consumer);
+            }
+        } catch (IOException | XMLStreamException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean parse(InputStream input, Deque<URI> queue, Consumer consumer) throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader(input);
+        try {
+            String location = null;
+            double priority = DEFAULT_PRIORITY;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "url", "sitemap" -> {
+                            location = null;
+                            priority = DEFAULT_PRIORITY;
+                        }
+                        case "loc" -> location = reader.getElementText().strip();
+                        case "priority" -> priority = parsePriority(reader.getElementText());
+                        default -> {}
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && location != null) {
+                    String name = reader.getLocalName();
+                    URI url = name.equals("url") || name.equals("sitemap") ? parseLocation(location) : null;
+                    if (url != null && name.equals("sitemap")) {
+                        queue.add(url);
+                    } else if (url != null && !consumer.accept(url, priority)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private URI parseLocation(String location) {
+        try {
+            return URI.create(location);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private double parsePriority(String text) {
+        try {
+            return Math.min(1.0, Math.max(0.0, Double.parseDouble(text.strip())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_PRIORITY;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package searchengine.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class SqlCapture implements StatementInspector {
+    @Override
+    public String inspect(String sql) {
+        QueryTrace.statement(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,162 @@
+package searchengine.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+public class TermFrequencies {
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] terms;
+    private int[] counts;
+    private int[][] positions;
+    private int[] positionCounts;
+    private int size;
+    private int tokenCount;
+
+    public TermFrequencies() {
+        this(MIN_CAPACITY);
+    }
+
+    public TermFrequencies(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, MIN_CAPACITY / 2) * 2 - 1) << 1;
+        terms = new String[capacity];
+        counts = new int[capacity];
+        positions = new int[capacity][];
+        positionCounts = new int[capacity];
+    }
+
+    public void add(String term, int count) {
+        int slot = insert(term);
+        counts[slot] += count;
+    }
+
+    public void addPosition(String term, int position) {
+        addPosition(term, position, 1);
+    }
+
+    public void addPosition(String term, int position, int weight) {
+        int slot = insert(term);
+        counts[slot] += weight;
+        appendPosition(slot, position);
+        tokenCount = Math.max(tokenCount, position + 1);
+    }
+
+    public int[] positions(String term) {
+        int slot = slot(terms, term);
+        return terms[slot] == null || positions[slot] == null ? new int[0]
+                : Arrays.copyOf(positions[slot], positionCounts[slot]);
+    }
+
+    public byte[] encodePositions(String term) {
+        int slot = slot(terms, term);
+        return terms[slot] == null || positions[slot] == null ? new byte[0]
+                : Positions.encode(positions[slot], positionCounts[slot]);
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public void setTokenCount(int tokenCount) {
+        this.tokenCount = Math.max(this.tokenCount, tokenCount);
+    }
+
+    public void append(TermFrequencies next) {
+        int shift = tokenCount;
+        for (int i = 0; i < next.terms.length; i++) {
+            if (next.terms[i] != null) {
+                int slot = insert(next.terms[i]);
+                counts[slot] += next.counts[i];
+                for (int j = 0; j < next.positionCounts[i]; j++) {
+                    appendPosition(slot, next.positions[i][j] + shift);
+                }
+            }
+        }
+        tokenCount = shift + next.tokenCount;
+    }
+
+    public int get(String term) {
+        int slot = slot(terms, term);
+        return terms[slot] == null ? 0 : counts[slot];
+    }
+
+    public void merge(TermFrequencies other) {
+        other.forEach(this::add);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(ObjIntConsumer<String> action) {
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i] != null) {
+                action.accept(terms[i], counts[i]);
+            }
+        }
+    }
+
+    public List<String> terms() {
+        List<String> result = new ArrayList<>(size);
+        forEach((term, count) -> result.add(term));
+        return result;
+    }
+
+    private int insert(String term) {
+        int slot = slot(terms, term);
+        if (terms[slot] == null) {
+            terms[slot] = term;
+            if (++size * 2 > terms.length) {
+                resize();
+                slot = slot(terms, term);
+            }
+        }
+        return slot;
+    }
+
+    private void appendPosition(int slot, int position) {
+        int[] list = positions[slot];
+        if (list == null) {
+            list = positions[slot] = new int[4];
+        } else if (positionCounts[slot] == list.length) {
+            list = positions[slot] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[positionCounts[slot]++] = position;
+    }
+
+    private void resize() {
+        String[] oldTerms = terms;
+        int[] oldCounts = counts;
+        int[][] oldPositions = positions;
+        int[] oldPositionCounts = positionCounts;
+        terms = new String[oldTerms.length * 2];
+        counts = new int[oldTerms.length * 2];
+        positions = new int[oldTerms.length * 2][];
+        positionCounts = new int[oldTerms.length * 2];
+        for (int i = 0; i < oldTerms.length; i++) {
+            if (oldTerms[i] != null) {
+                int slot = slot(terms, oldTerms[i]);
+                terms[slot] = oldTerms[i];
+                counts[slot] = oldCounts[i];
+                positions[slot] = oldPositions[i];
+                positionCounts[slot] = oldPositionCounts[i];
+            }
+        }
+    }
+
+    private static int slot(String[] table, String term) {
+        int hash = term.hashCode() * 0x9E3779B9;
+        int mask = table.length - 1;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (table[slot] != null && !table[slot].equals(term)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,288 @@
+package searchengine.utils;
+
+import searchengine.model.Page;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+
+public class UrlNormalizer {
+    private static final Set<String> TRACKING_PARAMETERS = Set.of("gclid", "fbclid", "yclid", "ysclid", "msclkid",
+            "igshid", "_openstat", "mc_cid", "mc_eid", "_ga", "_gl");
+    private static final String TRACKING_PREFIX = "utm_";
+    private static final String ALL_PARAMETERS = "*";
+    private static final String UNSAFE = " \"<>[\\]^`{|}";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private static final ThreadLocal<int[]> SEGMENTS = ThreadLocal.withInitial(() -> new int[64]);
+
+    private final String baseAddress;
+    private final String host;
+    private final int port;
+    private final int defaultPort;
+    private final String scope;
+    private final Set<String> queryParameters;
+
+    public UrlNormalizer(String siteAddress, Collection<String> queryParameters) {
+        URI site = URI.create(siteAddress.strip());
+        String scheme = site.getScheme().toLowerCase(Locale.ROOT);
+        this.host = site.getHost().toLowerCase(Locale.ROOT);
+        this.defaultPort = scheme.equals("https") ? 443 : 80;
+        this.port = site.getPort() == defaultPort ? -1 : site.getPort();
+        this.baseAddress = scheme + "://" + host + (port < 0 ? "" : ":" + port);
+        this.scope = site.getRawPath() == null || site.getRawPath().isEmpty() ? "/" : site.getRawPath();
+        this.queryParameters = Set.copyOf(queryParameters);
+    }
+
+    public String getBaseAddress() {
+        return baseAddress;
+    }
+
+    public String getPath(String canonical) {
+        return canonical.substring(baseAddress.length());
+    }
+
+    public String normalize(String href) {
+        return normalize("/", href);
+    }
+
+    public String normalize(String basePath, String href) {
+        return normalize(basePath, href, true);
+    }
+
+    public String resolveBase(String basePath, String href) {
+        String address = normalize(basePath, href, false);
+        return address == null ? basePath : getPath(address);
+    }
+
+    private String normalize(String basePath, String href, boolean canonical) {
+        int start = 0, end = href.length();
+        while (start < end && href.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && href.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int fragment = href.indexOf('#', start);
+        end = fragment >= 0 && fragment < end ? fragment : end;
+        if (start == end) {
+            return null;
+        }
+        int position = start;
+        int schemeEnd = schemeEnd(href, start, end);
+        if (schemeEnd > 0) {
+            if (!isHttp(href, start, schemeEnd) || !href.startsWith("//", schemeEnd + 1)) {
+                return null;
+            }
+            position = schemeEnd + 1;
+        }
+        if (href.startsWith("//", position)) {
+            position = authorityEnd(href, position + 2, end);
+            if (position < 0) {
+                return null;
+            }
+        }
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.append(baseAddress);
+        int pathBegin = builder.length();
+        int baseEnd = basePath.indexOf('?') < 0 ? basePath.length() : basePath.indexOf('?');
+        int query = indexOf(href, '?', position, end);
+        int pathEnd = query >= 0 ? query : end;
+        if (position == pathEnd) {
+            builder.append(position == start ? basePath : "/", 0, position == start ? baseEnd : 1);
+        } else if (href.charAt(position) == '/') {
+            appendEscaped(builder, href, position, pathEnd);
+        } else {
+            builder.append(basePath, 0, basePath.lastIndexOf('/', baseEnd - 1) + 1);
+            appendEscaped(builder, href, position, pathEnd);
+        }
+        if (!removeDotSegments(builder, pathBegin) || !isPage(builder) || !inScope(builder, pathBegin)) {
+            return null;
+        }
+        if (canonical && builder.length() - pathBegin > 1 && builder.charAt(builder.length() - 1) == '/') {
+            builder.setLength(builder.length() - 1);
+        }
+        if (query >= 0 && !queryParameters.isEmpty()) {
+            appendQuery(builder, href, query + 1, end);
+        }
+        return builder.length() - pathBegin > Page.MAX_PATH_LENGTH ? null : builder.toString();
+    }
+
+    private int authorityEnd(String href, int begin, int end) {
+        int authorityEnd = begin;
+        while (authorityEnd < end && "/?".indexOf(href.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        int colon = indexOf(href, ':', begin, authorityEnd);
+        int hostEnd = colon >= 0 ? colon : authorityEnd;
+        if (indexOf(href, '@', begin, authorityEnd) >= 0 || hostEnd - begin != host.length()
+                || !href.regionMatches(true, begin, host, 0, host.length())) {
+            return -1;
+        }
+        int linkPort = -1;
+        for (int i = colon + 1; colon >= 0 && i < authorityEnd; i++) {
+            char c = href.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            linkPort = Math.max(linkPort, 0) * 10 + (c - '0');
+        }
+        boolean samePort = linkPort == port || port < 0 && linkPort == defaultPort;
+        return samePort ? authorityEnd : -1;
+    }
+
+    private boolean removeDotSegments(StringBuilder builder, int pathBegin) {
+        int[] stack = SEGMENTS.get();
+        int depth = 0, read = pathBegin, write = pathBegin, pathEnd = builder.length();
+        while (read < pathEnd) {
+            int segmentStart = read + 1, segmentEnd = segmentStart;
+            while (segmentEnd < pathEnd && builder.charAt(segmentEnd) != '/') {
+                segmentEnd++;
+            }
+            int length = segmentEnd - segmentStart;
+            boolean current = length == 1 && builder.charAt(segmentStart) == '.';
+            boolean parent = length == 2 && builder.charAt(segmentStart) == '.'
+                    && builder.charAt(segmentStart + 1) == '.';
+            if (current || parent) {
+                if (parent && depth > 0) {
+                    write = stack[--depth];
+                }
+                if (segmentEnd == pathEnd) {
+                    builder.setCharAt(write++, '/');
+                }
+            } else {
+                if (depth == stack.length) {
+                    return false;
+                }
+                stack[depth++] = write;
+                for (int i = read; i < segmentEnd; i++) {
+                    builder.setCharAt(write++, builder.charAt(i));
+                }
+            }
+            read = segmentEnd;
+        }
+        builder.setLength(write);
+        return true;
+    }
+
+    private boolean inScope(StringBuilder builder, int pathBegin) {
+        int length = builder.length() - pathBegin;
+        int scopeLength = scope.length();
+        if (length == scopeLength - 1 && scope.charAt(scopeLength - 1) == '/') {
+            scopeLength--;
+        } else if (length < scopeLength) {
+            return false;
+        }
+        for (int i = 0; i < scopeLength; i++) {
+            if (builder.charAt(pathBegin + i) != scope.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPage(StringBuilder builder) {
+        int end = builder.length();
+        int segment = builder.lastIndexOf("/") + 1;
+        int dot = builder.lastIndexOf(".");
+        if (dot < segment) {
+            return true;
+        }
+        int extension = end - dot;
+        return (extension == 4 || extension == 5) && regionMatches(builder, dot, ".html", extension);
+    }
+
+    private void appendQuery(StringBuilder builder, String href, int begin, int end) {
+        char separator = '?';
+        for (int parameter = begin; parameter < end; ) {
+            int parameterEnd = indexOf(href, '&', parameter, end);
+            parameterEnd = parameterEnd < 0 ? end : parameterEnd;
+            int nameEnd = indexOf(href, '=', parameter, parameterEnd);
+            nameEnd = nameEnd < 0 ? parameterEnd : nameEnd;
+            if (nameEnd > parameter && isKept(href, parameter, nameEnd)) {
+                builder.append(separator);
+                appendEscaped(builder, href, parameter, parameterEnd);
+                separator = '&';
+            }
+            parameter = parameterEnd + 1;
+        }
+    }
+
+    private boolean isKept(String href, int begin, int end) {
+        if (!queryParameters.contains(ALL_PARAMETERS)) {
+            for (String parameter : queryParameters) {
+                if (parameter.length() == end - begin && href.startsWith(parameter, begin)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (href.regionMatches(true, begin, TRACKING_PREFIX, 0, TRACKING_PREFIX.length())) {
+            return false;
+        }
+        for (String parameter : TRACKING_PARAMETERS) {
+            if (parameter.length() == end - begin && href.regionMatches(true, begin, parameter, 0, parameter.length())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendEscaped(StringBuilder builder, String href, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            char c = href.charAt(i);
+            boolean brokenEscape = c == '%'
+                    && (i + 2 >= end || !isHex(href.charAt(i + 1)) || !isHex(href.charAt(i + 2)));
+            if (c < ' ' || UNSAFE.indexOf(c) >= 0 || brokenEscape) {
+                builder.append('%').append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+
+    private static int schemeEnd(String href, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = href.charAt(i);
+            if (c == ':') {
+                return i > start ? i : -1;
+            }
+            boolean valid = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z'
+                    || i > start && (c >= '0' && c <= '9' || c == '+' || c == '-' || c == '.');
+            if (!valid) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isHttp(String href, int start, int schemeEnd) {
+        int length = schemeEnd - start;
+        return (length == 4 || length == 5) && href.regionMatches(true, start, "https", 0, length);
+    }
+
+    private static boolean isHex(char c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+    }
+
+    private static boolean regionMatches(StringBuilder builder, int start, String other, int length) {
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(builder.charAt(start + i)) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(String href, char c, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            if (href.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}